@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * A thread-safe cache that holds up to a maximum number of entries and 
+ * evicts the least recently used entry when full. Keeps count of hits and
+ * misses.
+ *
+ * @see FrozenMvcSetup#getHandlerCache(int)
+ * @see FrozenMvcSetup#getViewCache(int)
+ */
+public class BoundedCache<K, V> {
+
+	private final Map<K, V> entries;
+
+	private final int maxSize;
+
+	private long hitCount;
+
+	private long missCount;
+
+	public BoundedCache(final int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public synchronized V get(K key) {
+		V value = this.entries.get(key);
+		if (value != null) {
+			this.hitCount++;
+		}
+		else {
+			this.missCount++;
+		}
+		return value;
+	}
+
+	public synchronized void put(K key, V value) {
+		this.entries.put(key, value);
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "size = " + this.entries.size() + ", hits = " + this.hitCount + ", misses = " + this.missCount;
+	}
+
+}
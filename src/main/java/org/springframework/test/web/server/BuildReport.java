@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each phase of building a {@link MockMvc} took, e.g.
+ * initializing the WebApplicationContext (which includes its refresh),
+ * detecting handler mappings, or initializing handler adapters.
+ *
+ * <p>Phases are named after the builder methods they time, such as
+ * "initWebApplicationContext" or "initHandlerMappings".
+ *
+ * @see MockMvc#getBuildReport()
+ */
+public class BuildReport {
+
+	private final String builderKey;
+
+	private final Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
+
+	private long totalTime;
+
+	/**
+	 * Create a report for a build identified by the given key.
+	 * @param builderKey identifies builders with the same configuration
+	 */
+	public BuildReport(String builderKey) {
+		this.builderKey = builderKey;
+	}
+
+	/**
+	 * Return the key identifying builders with the same configuration.
+	 */
+	public String getBuilderKey() {
+		return this.builderKey;
+	}
+
+	/**
+	 * Record a phase that started at the given time and ended now.
+	 * @param phase the name of the phase
+	 * @param startTime the {@link System#nanoTime()} at the start of the phase
+	 * @return the current {@link System#nanoTime()}, i.e. the start time of the next phase
+	 */
+	public long addPhase(String phase, long startTime) {
+		long endTime = System.nanoTime();
+		long elapsed = endTime - startTime;
+		Long previous = this.phaseTimes.get(phase);
+		this.phaseTimes.put(phase, (previous != null) ? previous + elapsed : elapsed);
+		this.totalTime += elapsed;
+		return endTime;
+	}
+
+	/**
+	 * Return the time taken by each phase in nanoseconds, in the order of execution.
+	 */
+	public Map<String, Long> getPhaseTimes() {
+		return Collections.unmodifiableMap(this.phaseTimes);
+	}
+
+	/**
+	 * Return the time taken by the given phase in nanoseconds, or 0 if the phase
+	 * was not executed.
+	 */
+	public long getPhaseTime(String phase) {
+		Long time = this.phaseTimes.get(phase);
+		return (time != null) ? time : 0;
+	}
+
+	/**
+	 * Return the total time of all phases in nanoseconds.
+	 */
+	public long getTotalTime() {
+		return this.totalTime;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Build of [" + this.builderKey + "] took ");
+		sb.append(formatMillis(this.totalTime)).append(" ms");
+		for (Map.Entry<String, Long> entry : this.phaseTimes.entrySet()) {
+			sb.append("\n    ").append(entry.getKey()).append(" = ").append(formatMillis(entry.getValue())).append(" ms");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Format the given nanoseconds as milliseconds with a precision of microseconds.
+	 */
+	public static String formatMillis(long nanos) {
+		return String.format("%.3f", nanos / 1000000.0);
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * A {@link HandlerMapping} that declares whether the handler and interceptors
+ * it returns for a request may be cached by {@link MockMvc}.
+ *
+ * <p>A cacheable mapping returns the same handler and interceptors for all
+ * requests with the same method, request URI, context path, servlet path, 
+ * path info, and "Accept" and "Content-Type" headers, and changes no request
+ * state other than request attributes. The request attributes it sets, e.g.
+ * URI template variables, are replayed when a cached handler is used.
+ *
+ * @see DispatchOptions#setHandlerCacheSize(int)
+ */
+public interface CacheableHandlerMapping extends HandlerMapping {
+
+	/**
+	 * Whether the result of {@link #getHandler} may be cached.
+	 */
+	boolean isCacheable();
+
+}
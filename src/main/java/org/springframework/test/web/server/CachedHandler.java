@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * The handler and interceptors resolved for a request along with the request
+ * attributes set by the handler mapping while resolving them.
+ *
+ * @see HandlerCacheKey
+ */
+class CachedHandler {
+
+	private final Object handler;
+
+	private final HandlerInterceptor[] interceptors;
+
+	private final Map<String, Object> attributes;
+
+	public CachedHandler(Object handler, HandlerInterceptor[] interceptors, Map<String, Object> attributes) {
+		this.handler = handler;
+		this.interceptors = interceptors;
+		this.attributes = attributes.isEmpty() ? Collections.<String, Object>emptyMap() : attributes;
+	}
+
+	public Object getHandler() {
+		return this.handler;
+	}
+
+	public HandlerInterceptor[] getInterceptors() {
+		return this.interceptors;
+	}
+
+	/**
+	 * Set the recorded attributes on the given request. Map and Set values, 
+	 * e.g. URI template variables, are copied since handlers may modify them.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void replayAttributes(HttpServletRequest request) {
+		for (Map.Entry<String, Object> entry : this.attributes.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof Map) {
+				value = new LinkedHashMap((Map) value);
+			}
+			else if (value instanceof Set) {
+				value = new LinkedHashSet((Set) value);
+			}
+			request.setAttribute(entry.getKey(), value);
+		}
+	}
+
+}
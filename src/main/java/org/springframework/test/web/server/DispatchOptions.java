@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.Filter;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options that control how {@link MockMvc} dispatches requests. 
+ * 
+ * <p>Caches enabled here are kept with the Spring MVC components of a 
+ * {@link FrozenMvcSetup}, so they are shared by all MockMvc instances 
+ * built with the same, e.g. pooled, components.
+ *
+ * @see org.springframework.test.web.server.setup.AbstractMockMvcBuilder
+ */
+public class DispatchOptions {
+
+	private int handlerCacheSize;
+
+	private boolean cacheHandlerAdapters = true;
+
+	private int viewCacheSize;
+
+	private boolean cacheExceptionResolvers;
+
+	private boolean skipRendering;
+
+	private long timeout;
+
+	private boolean bindRequestContext = true;
+
+	private boolean useFlashMaps = true;
+
+	private boolean resolveLocale = true;
+
+	private final List<FilterMapping> filterMappings = new ArrayList<FilterMapping>();
+
+	public DispatchOptions() {
+	}
+
+	/**
+	 * Create a copy of the given options.
+	 */
+	public DispatchOptions(DispatchOptions options) {
+		this.handlerCacheSize = options.handlerCacheSize;
+		this.cacheHandlerAdapters = options.cacheHandlerAdapters;
+		this.viewCacheSize = options.viewCacheSize;
+		this.cacheExceptionResolvers = options.cacheExceptionResolvers;
+		this.skipRendering = options.skipRendering;
+		this.timeout = options.timeout;
+		this.bindRequestContext = options.bindRequestContext;
+		this.useFlashMaps = options.useFlashMaps;
+		this.resolveLocale = options.resolveLocale;
+		this.filterMappings.addAll(options.filterMappings);
+	}
+
+	/**
+	 * Cache the handler and interceptors resolved for a request by the method, 
+	 * URI, and "Accept" and "Content-Type" headers of the request. Only used
+	 * when all handler mappings consulted for a request are 
+	 * {@link CacheableHandlerMapping}s that declare themselves cacheable.
+	 * <p>The default is 0, i.e. no caching. MockMvc instances with the same 
+	 * components and cache size share a cache.
+	 * @param handlerCacheSize the maximum number of cached entries
+	 */
+	public void setHandlerCacheSize(int handlerCacheSize) {
+		Assert.isTrue(handlerCacheSize >= 0, "handlerCacheSize must not be negative");
+		this.handlerCacheSize = handlerCacheSize;
+	}
+
+	public int getHandlerCacheSize() {
+		return this.handlerCacheSize;
+	}
+
+	/**
+	 * Remember the HandlerAdapter that supports a handler type, or the bean 
+	 * type of a {@link org.springframework.web.method.HandlerMethod}, rather 
+	 * than asking each adapter for every request.
+	 * <p>The default is "true".
+	 * @see NonCacheableHandlerAdapter
+	 */
+	public void setCacheHandlerAdapters(boolean cacheHandlerAdapters) {
+		this.cacheHandlerAdapters = cacheHandlerAdapters;
+	}
+
+	public boolean isCacheHandlerAdapters() {
+		return this.cacheHandlerAdapters;
+	}
+
+	/**
+	 * Cache the View resolved for a view name and locale, which helps with 
+	 * ViewResolvers that do not cache views themselves. Views resolved by a 
+	 * {@link org.springframework.web.servlet.view.ContentNegotiatingViewResolver}
+	 * are never cached, nor are "redirect:" and "forward:" views unless the 
+	 * resolver is an {@link org.springframework.web.servlet.view.AbstractCachingViewResolver}
+	 * with caching turned on. 
+	 * <p>The default is 0, i.e. no caching. MockMvc instances with the same 
+	 * components and cache size share a cache.
+	 * @param viewCacheSize the maximum number of cached views
+	 */
+	public void setViewCacheSize(int viewCacheSize) {
+		Assert.isTrue(viewCacheSize >= 0, "viewCacheSize must not be negative");
+		this.viewCacheSize = viewCacheSize;
+	}
+
+	public int getViewCacheSize() {
+		return this.viewCacheSize;
+	}
+
+	/**
+	 * Remember the index of the HandlerExceptionResolver that resolved an 
+	 * exception by handler type, or bean type of a 
+	 * {@link org.springframework.web.method.HandlerMethod}, and exception class.
+	 * Later exceptions with the same key go to that resolver first and to all 
+	 * resolvers in order if it declines. Resolvers before it are assumed to 
+	 * decline as well, which holds unless their decision depends on the 
+	 * request or on the handler instance.
+	 * <p>The default is "false".
+	 */
+	public void setCacheExceptionResolvers(boolean cacheExceptionResolvers) {
+		this.cacheExceptionResolvers = cacheExceptionResolvers;
+	}
+
+	public boolean isCacheExceptionResolvers() {
+		return this.cacheExceptionResolvers;
+	}
+
+	/**
+	 * Whether to stop after the handler and interceptors have run and record 
+	 * the ModelAndView without resolving and rendering the view. Useful for 
+	 * tests that assert only on the model, the view name, or flash attributes.
+	 * <p>The default is "false". May be overridden per request through the 
+	 * {@link MockMvc#SKIP_RENDERING_ATTRIBUTE} request attribute.
+	 */
+	public void setSkipRendering(boolean skipRendering) {
+		this.skipRendering = skipRendering;
+	}
+
+	public boolean isSkipRendering() {
+		return this.skipRendering;
+	}
+
+	/**
+	 * The maximum time in milliseconds a request may take. If set, requests 
+	 * are executed on a worker thread and fail with an AssertionError that 
+	 * includes a thread dump and the stack trace of the worker once the time 
+	 * passes.
+	 * <p>The default is 0, i.e. requests execute on the calling thread 
+	 * without a time limit.
+	 * @see MockMvc#perform(RequestBuilder, long)
+	 */
+	public void setTimeout(long timeout) {
+		Assert.isTrue(timeout >= 0, "timeout must not be negative");
+		this.timeout = timeout;
+	}
+
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Whether to bind the request to the current thread through 
+	 * {@link org.springframework.web.context.request.RequestContextHolder} 
+	 * while it is executed. Turn off only if no component relies on it, 
+	 * e.g. request-scoped beans.
+	 * <p>The default is "true".
+	 */
+	public void setBindRequestContext(boolean bindRequestContext) {
+		this.bindRequestContext = bindRequestContext;
+	}
+
+	public boolean isBindRequestContext() {
+		return this.bindRequestContext;
+	}
+
+	/**
+	 * Whether to invoke the FlashMapManager for requests. When "false" no 
+	 * flash maps are looked up or saved and handlers must not declare a 
+	 * {@link org.springframework.web.servlet.mvc.support.RedirectAttributes} 
+	 * argument.
+	 * <p>The default is "true".
+	 */
+	public void setUseFlashMaps(boolean useFlashMaps) {
+		this.useFlashMaps = useFlashMaps;
+	}
+
+	public boolean isUseFlashMaps() {
+		return this.useFlashMaps;
+	}
+
+	/**
+	 * Whether to resolve the locale for rendering through the LocaleResolver 
+	 * and set it on the response. When "false" views are resolved with the 
+	 * locale of the request and the response locale is left as is.
+	 * <p>The default is "true".
+	 */
+	public void setResolveLocale(boolean resolveLocale) {
+		this.resolveLocale = resolveLocale;
+	}
+
+	public boolean isResolveLocale() {
+		return this.resolveLocale;
+	}
+
+	/**
+	 * Add a Servlet {@link Filter} to run requests through before they are 
+	 * dispatched. Filters are invoked in the order in which they are added.
+	 * They are not initialized, i.e. {@link Filter#init} is not invoked.
+	 * @param filter the filter
+	 * @param urlPatterns Servlet URL patterns such as "/path/*", "*.ext", or 
+	 * "/exact/path"; if none are given, the filter applies to all requests
+	 */
+	public void addFilter(Filter filter, String... urlPatterns) {
+		this.filterMappings.add(new FilterMapping(filter, urlPatterns));
+	}
+
+	List<FilterMapping> getFilterMappings() {
+		return Collections.unmodifiableList(this.filterMappings);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Holds the state of a single request executed by a {@link MockDispatcher}:
+ * the mapped handler and interceptors, the resulting model and view, and the
+ * resolved exception, and exposes them to {@link ResultMatcher}s and 
+ * {@link ResultPrinter}s once the request is complete.
+ * 
+ * <p>Also serves as the RequestAttributes bound to the thread during the 
+ * request, if enabled through {@link DispatchOptions#setBindRequestContext(boolean)},
+ * so that no other per-request object is needed for it.
+ */
+class DispatchResult extends ServletRequestAttributes implements ResultActions {
+
+	private final MockHttpServletRequest mockRequest;
+
+	private final MockHttpServletResponse mockResponse;
+
+	private Object handler;
+
+	private HandlerInterceptor[] interceptors;
+
+	private ModelAndView mav;
+
+	private Exception resolvedException;
+
+	public DispatchResult(MockHttpServletRequest request, MockHttpServletResponse response) {
+		super(request);
+		this.mockRequest = request;
+		this.mockResponse = response;
+	}
+
+	public Object getHandler() {
+		return this.handler;
+	}
+
+	public HandlerInterceptor[] getInterceptors() {
+		return this.interceptors;
+	}
+
+	public void setHandler(Object handler, HandlerInterceptor[] interceptors) {
+		this.handler = handler;
+		this.interceptors = interceptors;
+	}
+
+	public ModelAndView getMav() {
+		return this.mav;
+	}
+
+	public void setMav(ModelAndView mav) {
+		this.mav = mav;
+	}
+
+	public Exception getResolvedException() {
+		return this.resolvedException;
+	}
+
+	public void setResolvedException(Exception resolvedException) {
+		this.resolvedException = resolvedException;
+	}
+
+	public ResultActions andExpect(ResultMatcher matcher) throws Exception {
+		matcher.match(this.mockRequest, this.mockResponse, this.handler, this.interceptors, this.mav, 
+				this.resolvedException);
+		return this;
+	}
+
+	public ResultActions andPrint(ResultPrinter printer) throws Exception {
+		printer.print(this.mockRequest, this.mockResponse, this.handler, this.interceptors, this.mav, 
+				this.resolvedException);
+		return this;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A {@link FilterChain} that invokes the given filters in order and then
+ * executes the request through a {@link MockDispatcher}.
+ */
+class DispatchingFilterChain implements FilterChain {
+
+	private final Filter[] filters;
+
+	private final MockDispatcher dispatcher;
+
+	private final DispatchResult result;
+
+	private int position;
+
+	public DispatchingFilterChain(Filter[] filters, MockDispatcher dispatcher, DispatchResult result) {
+		this.filters = filters;
+		this.dispatcher = dispatcher;
+		this.result = result;
+	}
+
+	/**
+	 * Run the request through the filter chain.
+	 * @throws Exception if an exception occurs not handled by a filter or 
+	 * a HandlerExceptionResolver
+	 */
+	public void execute(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		try {
+			doFilter(request, response);
+		}
+		catch (DispatchException ex) {
+			throw ex.getDispatchException();
+		}
+	}
+
+	public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+		if (this.position < this.filters.length) {
+			this.filters[this.position++].doFilter(request, response, this);
+			return;
+		}
+		try {
+			this.dispatcher.execute((HttpServletRequest) request, (HttpServletResponse) response, this.result);
+		}
+		catch (IOException ex) {
+			throw ex;
+		}
+		catch (ServletException ex) {
+			throw ex;
+		}
+		catch (RuntimeException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new DispatchException(ex);
+		}
+	}
+
+
+	/**
+	 * Carries a checked exception other than IOException or ServletException 
+	 * through the filters.
+	 */
+	@SuppressWarnings("serial")
+	private static class DispatchException extends ServletException {
+
+		private final Exception dispatchException;
+
+		public DispatchException(Exception dispatchException) {
+			super(dispatchException);
+			this.dispatchException = dispatchException;
+		}
+
+		public Exception getDispatchException() {
+			return this.dispatchException;
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Identifies handler exceptions by the type of the handler, or the bean 
+ * type of a {@link HandlerMethod}, and the exception class.
+ */
+class ExceptionResolverCacheKey {
+
+	private final Class<?> handlerType;
+
+	private final Class<?> exceptionType;
+
+	private final int hashCode;
+
+	public ExceptionResolverCacheKey(Object handler, Exception exception) {
+		if (handler instanceof HandlerMethod) {
+			this.handlerType = ((HandlerMethod) handler).getBeanType();
+		}
+		else {
+			this.handlerType = (handler != null) ? handler.getClass() : null;
+		}
+		this.exceptionType = exception.getClass();
+		this.hashCode = 31 * ObjectUtils.nullSafeHashCode(this.handlerType) + this.exceptionType.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof ExceptionResolverCacheKey)) {
+			return false;
+		}
+		ExceptionResolverCacheKey otherKey = (ExceptionResolverCacheKey) other;
+		return (this.handlerType == otherKey.handlerType && this.exceptionType == otherKey.exceptionType);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return "handler type=" + this.handlerType + ", exception type=" + this.exceptionType;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Determines the filters that apply to a request from the configured 
+ * {@link FilterMapping}s and caches them by path.
+ */
+class FilterChainResolver {
+
+	private static final int CACHE_SIZE = 1024;
+
+	private final FilterMapping[] filterMappings;
+
+	private final BoundedCache<String, Filter[]> filterCache = new BoundedCache<String, Filter[]>(CACHE_SIZE);
+
+	public FilterChainResolver(List<FilterMapping> filterMappings) {
+		this.filterMappings = filterMappings.toArray(new FilterMapping[filterMappings.size()]);
+	}
+
+	/**
+	 * Return the filters to apply to the given request in the order of 
+	 * their mappings, possibly an empty array.
+	 */
+	public Filter[] getFilters(HttpServletRequest request) {
+		String path = getPathWithinApplication(request);
+		Filter[] filters = this.filterCache.get(path);
+		if (filters == null) {
+			List<Filter> result = new ArrayList<Filter>(this.filterMappings.length);
+			for (FilterMapping mapping : this.filterMappings) {
+				if (mapping.matches(path)) {
+					result.add(mapping.getFilter());
+				}
+			}
+			filters = result.toArray(new Filter[result.size()]);
+			this.filterCache.put(path, filters);
+		}
+		return filters;
+	}
+
+	private static String getPathWithinApplication(HttpServletRequest request) {
+		String requestUri = request.getRequestURI();
+		String contextPath = request.getContextPath();
+		if (requestUri == null) {
+			return "";
+		}
+		if (contextPath != null && contextPath.length() > 0 && requestUri.startsWith(contextPath)) {
+			requestUri = requestUri.substring(contextPath.length());
+		}
+		return (requestUri.length() > 0) ? requestUri : "/";
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import javax.servlet.Filter;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A {@link Filter} with the Servlet URL patterns it is mapped to. The patterns
+ * are parsed once into exact, path prefix ("/path/*"), and extension ("*.ext")
+ * matches. The patterns "/" and "/*" match all paths.
+ *
+ * @see DispatchOptions#addFilter(Filter, String...)
+ */
+class FilterMapping {
+
+	private final Filter filter;
+
+	private final String[] urlPatterns;
+
+	private final boolean matchAll;
+
+	private final String[] exactPaths;
+
+	private final String[] pathPrefixes;
+
+	private final String[] extensions;
+
+	public FilterMapping(Filter filter, String... urlPatterns) {
+		Assert.notNull(filter, "Filter is required");
+		this.filter = filter;
+		this.urlPatterns = ObjectUtils.isEmpty(urlPatterns) ? new String[] { "/*" } : urlPatterns;
+
+		boolean matchAll = false;
+		int exactCount = 0, prefixCount = 0, extensionCount = 0;
+		String[] exactPaths = new String[this.urlPatterns.length];
+		String[] pathPrefixes = new String[this.urlPatterns.length];
+		String[] extensions = new String[this.urlPatterns.length];
+
+		for (String pattern : this.urlPatterns) {
+			Assert.hasText(pattern, "URL patterns must not be empty");
+			if (pattern.equals("/") || pattern.equals("/*")) {
+				matchAll = true;
+			}
+			else if (pattern.startsWith("/") && pattern.endsWith("/*")) {
+				pathPrefixes[prefixCount++] = pattern.substring(0, pattern.length() - 2);
+			}
+			else if (pattern.startsWith("*.")) {
+				extensions[extensionCount++] = pattern.substring(1);
+			}
+			else {
+				exactPaths[exactCount++] = pattern;
+			}
+		}
+
+		this.matchAll = matchAll;
+		this.exactPaths = trim(exactPaths, exactCount);
+		this.pathPrefixes = trim(pathPrefixes, prefixCount);
+		this.extensions = trim(extensions, extensionCount);
+	}
+
+	private static String[] trim(String[] array, int length) {
+		String[] result = new String[length];
+		System.arraycopy(array, 0, result, 0, length);
+		return result;
+	}
+
+	public Filter getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * Whether the filter applies to the given path within the web application.
+	 */
+	public boolean matches(String path) {
+		if (this.matchAll) {
+			return true;
+		}
+		for (String exactPath : this.exactPaths) {
+			if (path.equals(exactPath)) {
+				return true;
+			}
+		}
+		for (String prefix : this.pathPrefixes) {
+			if (path.equals(prefix) || (path.startsWith(prefix) && path.charAt(prefix.length()) == '/')) {
+				return true;
+			}
+		}
+		for (String extension : this.extensions) {
+			if (path.endsWith(extension) && path.indexOf('/', path.length() - extension.length()) == -1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return this.filter + " " + ObjectUtils.nullSafeToString(this.urlPatterns);
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.web.servlet.FlashMapManager;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.RequestToViewNameTranslator;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+
+/**
+ * An immutable {@link MvcSetup} that takes a snapshot of the Spring MVC
+ * infrastructure components it is created with.
+ *
+ * <p>In addition to the {@link List}-based methods of {@link MvcSetup},
+ * components can be accessed by index without creating any objects, which
+ * is how {@link MockDispatcher} accesses them on every request.
+ *
+ * <p>Also holds the caches {@link MockDispatcher} uses, if enabled through 
+ * {@link DispatchOptions}, since their entries depend only on the components.
+ */
+public class FrozenMvcSetup implements MvcSetup {
+
+	private final HandlerMapping[] handlerMappings;
+
+	private final HandlerAdapter[] handlerAdapters;
+
+	private final HandlerExceptionResolver[] exceptionResolvers;
+
+	private final ViewResolver[] viewResolvers;
+
+	private final List<HandlerMapping> handlerMappingList;
+
+	private final List<HandlerAdapter> handlerAdapterList;
+
+	private final List<HandlerExceptionResolver> exceptionResolverList;
+
+	private final List<ViewResolver> viewResolverList;
+
+	private final RequestToViewNameTranslator viewNameTranslator;
+
+	private final LocaleResolver localeResolver;
+
+	private final FlashMapManager flashMapManager;
+
+	private final Map<Integer, BoundedCache<HandlerCacheKey, CachedHandler>> handlerCaches = 
+			new HashMap<Integer, BoundedCache<HandlerCacheKey, CachedHandler>>();
+
+	private final Map<Integer, BoundedCache<String, View>> viewCaches = 
+			new HashMap<Integer, BoundedCache<String, View>>();
+
+	private final Map<Class<?>, HandlerAdapter> handlerAdapterCache = new ConcurrentHashMap<Class<?>, HandlerAdapter>();
+
+	private final Map<Class<?>, HandlerAdapter> handlerMethodAdapterCache = new ConcurrentHashMap<Class<?>, HandlerAdapter>();
+
+	private final Map<ExceptionResolverCacheKey, Integer> exceptionResolverCache = 
+			new ConcurrentHashMap<ExceptionResolverCacheKey, Integer>();
+
+	/**
+	 * Create an instance from the components of the given {@link MvcSetup}.
+	 */
+	public FrozenMvcSetup(MvcSetup mvcSetup) {
+		this(mvcSetup.getHandlerMappings(), mvcSetup.getHandlerAdapters(), mvcSetup.getExceptionResolvers(),
+				mvcSetup.getViewResolvers(), mvcSetup.getViewNameTranslator(), mvcSetup.getLocaleResolver(),
+				mvcSetup.getFlashMapManager());
+	}
+
+	/**
+	 * Create an instance from the given components.
+	 * The lists are copied and may be {@code null}.
+	 */
+	public FrozenMvcSetup(List<HandlerMapping> handlerMappings,
+						  List<HandlerAdapter> handlerAdapters,
+						  List<HandlerExceptionResolver> exceptionResolvers,
+						  List<ViewResolver> viewResolvers,
+						  RequestToViewNameTranslator viewNameTranslator,
+						  LocaleResolver localeResolver,
+						  FlashMapManager flashMapManager) {
+
+		this.handlerMappings = (handlerMappings != null) ?
+				handlerMappings.toArray(new HandlerMapping[handlerMappings.size()]) : new HandlerMapping[0];
+		this.handlerAdapters = (handlerAdapters != null) ?
+				handlerAdapters.toArray(new HandlerAdapter[handlerAdapters.size()]) : new HandlerAdapter[0];
+		this.exceptionResolvers = (exceptionResolvers != null) ?
+				exceptionResolvers.toArray(new HandlerExceptionResolver[exceptionResolvers.size()]) : new HandlerExceptionResolver[0];
+		this.viewResolvers = (viewResolvers != null) ?
+				viewResolvers.toArray(new ViewResolver[viewResolvers.size()]) : new ViewResolver[0];
+
+		this.handlerMappingList = Collections.unmodifiableList(Arrays.asList(this.handlerMappings));
+		this.handlerAdapterList = Collections.unmodifiableList(Arrays.asList(this.handlerAdapters));
+		this.exceptionResolverList = Collections.unmodifiableList(Arrays.asList(this.exceptionResolvers));
+		this.viewResolverList = Collections.unmodifiableList(Arrays.asList(this.viewResolvers));
+
+		this.viewNameTranslator = viewNameTranslator;
+		this.localeResolver = localeResolver;
+		this.flashMapManager = flashMapManager;
+	}
+
+	/**
+	 * Return the given MvcSetup if it is a FrozenMvcSetup, or otherwise
+	 * a FrozenMvcSetup with a snapshot of its components.
+	 */
+	public static FrozenMvcSetup freeze(MvcSetup mvcSetup) {
+		return (mvcSetup instanceof FrozenMvcSetup) ? (FrozenMvcSetup) mvcSetup : new FrozenMvcSetup(mvcSetup);
+	}
+
+	public List<HandlerMapping> getHandlerMappings() {
+		return this.handlerMappingList;
+	}
+
+	public int getHandlerMappingCount() {
+		return this.handlerMappings.length;
+	}
+
+	public HandlerMapping getHandlerMapping(int index) {
+		return this.handlerMappings[index];
+	}
+
+	public List<HandlerAdapter> getHandlerAdapters() {
+		return this.handlerAdapterList;
+	}
+
+	public int getHandlerAdapterCount() {
+		return this.handlerAdapters.length;
+	}
+
+	public HandlerAdapter getHandlerAdapter(int index) {
+		return this.handlerAdapters[index];
+	}
+
+	public List<HandlerExceptionResolver> getExceptionResolvers() {
+		return this.exceptionResolverList;
+	}
+
+	public int getExceptionResolverCount() {
+		return this.exceptionResolvers.length;
+	}
+
+	public HandlerExceptionResolver getExceptionResolver(int index) {
+		return this.exceptionResolvers[index];
+	}
+
+	public List<ViewResolver> getViewResolvers() {
+		return this.viewResolverList;
+	}
+
+	public int getViewResolverCount() {
+		return this.viewResolvers.length;
+	}
+
+	public ViewResolver getViewResolver(int index) {
+		return this.viewResolvers[index];
+	}
+
+	public RequestToViewNameTranslator getViewNameTranslator() {
+		return this.viewNameTranslator;
+	}
+
+	public LocaleResolver getLocaleResolver() {
+		return this.localeResolver;
+	}
+
+	public FlashMapManager getFlashMapManager() {
+		return this.flashMapManager;
+	}
+
+	/**
+	 * Return the cache of resolved handlers with the given maximum size, 
+	 * or {@code null} if not used.
+	 */
+	public synchronized BoundedCache<?, ?> getHandlerCache(int maxSize) {
+		return this.handlerCaches.get(maxSize);
+	}
+
+	/**
+	 * Return the cache of resolved handlers with the given maximum size, 
+	 * creating it if necessary. MockMvc instances configured with different
+	 * sizes use separate caches.
+	 */
+	synchronized BoundedCache<HandlerCacheKey, CachedHandler> obtainHandlerCache(int maxSize) {
+		BoundedCache<HandlerCacheKey, CachedHandler> cache = this.handlerCaches.get(maxSize);
+		if (cache == null) {
+			cache = new BoundedCache<HandlerCacheKey, CachedHandler>(maxSize);
+			this.handlerCaches.put(maxSize, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Return the cache of resolved views with the given maximum size, 
+	 * or {@code null} if not used.
+	 */
+	public synchronized BoundedCache<?, ?> getViewCache(int maxSize) {
+		return this.viewCaches.get(maxSize);
+	}
+
+	/**
+	 * Return the cache of resolved views by view name and locale with the 
+	 * given maximum size, creating it if necessary. MockMvc instances 
+	 * configured with different sizes use separate caches.
+	 */
+	synchronized BoundedCache<String, View> obtainViewCache(int maxSize) {
+		BoundedCache<String, View> cache = this.viewCaches.get(maxSize);
+		if (cache == null) {
+			cache = new BoundedCache<String, View>(maxSize);
+			this.viewCaches.put(maxSize, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Return the cache of handler adapters by handler type, or by bean type 
+	 * for {@link org.springframework.web.method.HandlerMethod} handlers.
+	 */
+	Map<Class<?>, HandlerAdapter> getHandlerAdapterCache(boolean handlerMethods) {
+		return handlerMethods ? this.handlerMethodAdapterCache : this.handlerAdapterCache;
+	}
+
+	/**
+	 * Return the cache of the index of the HandlerExceptionResolver that 
+	 * resolved an exception by handler type and exception class.
+	 */
+	Map<ExceptionResolverCacheKey, Integer> getExceptionResolverCache() {
+		return this.exceptionResolverCache;
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.Enumeration;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Identifies requests that {@link CacheableHandlerMapping}s map to the same 
+ * handler and interceptors.
+ */
+class HandlerCacheKey {
+
+	private final String method;
+
+	private final String requestUri;
+
+	private final String contextPath;
+
+	private final String servletPath;
+
+	private final String pathInfo;
+
+	private final String accept;
+
+	private final String contentType;
+
+	private final int hashCode;
+
+	public HandlerCacheKey(HttpServletRequest request) {
+		this.method = request.getMethod();
+		this.requestUri = request.getRequestURI();
+		this.contextPath = request.getContextPath();
+		this.servletPath = request.getServletPath();
+		this.pathInfo = request.getPathInfo();
+		this.accept = getHeaderValues(request, "Accept");
+		this.contentType = request.getContentType();
+		this.hashCode = ObjectUtils.nullSafeHashCode(new Object[] { this.method, this.requestUri, this.contextPath,
+				this.servletPath, this.pathInfo, this.accept, this.contentType });
+	}
+
+	private static String getHeaderValues(HttpServletRequest request, String name) {
+		Enumeration<?> values = request.getHeaders(name);
+		if (values == null || !values.hasMoreElements()) {
+			return null;
+		}
+		String value = (String) values.nextElement();
+		if (!values.hasMoreElements()) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value);
+		while (values.hasMoreElements()) {
+			sb.append(", ").append(values.nextElement());
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof HandlerCacheKey)) {
+			return false;
+		}
+		HandlerCacheKey otherKey = (HandlerCacheKey) other;
+		return (this.hashCode == otherKey.hashCode && 
+				ObjectUtils.nullSafeEquals(this.method, otherKey.method) &&
+				ObjectUtils.nullSafeEquals(this.requestUri, otherKey.requestUri) &&
+				ObjectUtils.nullSafeEquals(this.contextPath, otherKey.contextPath) &&
+				ObjectUtils.nullSafeEquals(this.servletPath, otherKey.servletPath) &&
+				ObjectUtils.nullSafeEquals(this.pathInfo, otherKey.pathInfo) &&
+				ObjectUtils.nullSafeEquals(this.accept, otherKey.accept) &&
+				ObjectUtils.nullSafeEquals(this.contentType, otherKey.contentType));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return this.method + " " + this.requestUri + ", Accept=" + this.accept + ", Content-Type=" + this.contentType;
+	}
+
+}
@@ -16,19 +16,17 @@
 
 package org.springframework.test.web.server;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.springframework.mock.web.MockHttpServletRequest;
-import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.util.Assert;
 import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.HandlerAdapter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
@@ -38,125 +36,225 @@ import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.view.AbstractCachingViewResolver;
+import org.springframework.web.servlet.view.ContentNegotiatingViewResolver;
+import org.springframework.web.servlet.view.UrlBasedViewResolver;
 
 /**
  * Executes requests by driving Spring MVC infrastructure components, much like the
  * DispatcherServlet does but outside a ServletContainer. 
  * 
- * <p>After the request is executed exposes information about the mapped handler, 
- * the resulting model and view, resolved exceptions, etc.
+ * <p>Holds no per-request state and is created once per {@link MockMvc}. The
+ * mapped handler, the resulting model and view, resolved exceptions, etc. are
+ * recorded in the {@link DispatchResult} passed in for each request.
  * 
  * @author Rossen Stoyanchev
  */
 class MockDispatcher {
 
-	private final MvcSetup mvcSetup;
+	private final FrozenMvcSetup mvcSetup;
+
+	private final BoundedCache<HandlerCacheKey, CachedHandler> handlerCache;
+
+	private final boolean cacheHandlerAdapters;
+
+	private final BoundedCache<String, View> viewCache;
+
+	private final Map<ExceptionResolverCacheKey, Integer> exceptionResolverCache;
+
+	private final boolean skipRendering;
+
+	private final boolean bindRequestContext;
+
+	private final boolean useFlashMaps;
+
+	private final boolean resolveLocale;
 
-	private Object handler;
-	
-	private HandlerInterceptor[] interceptors;
-	
-	private ModelAndView mav;
-	
-	private Exception resolvedException;
-	
 	/**
 	 * Package-private constructor used by {@link MockMvc}.
 	 */
-	MockDispatcher(MvcSetup setup) {
+	MockDispatcher(FrozenMvcSetup setup, DispatchOptions options) {
 		this.mvcSetup = setup;
+		this.handlerCache = (options.getHandlerCacheSize() > 0) ? 
+				setup.obtainHandlerCache(options.getHandlerCacheSize()) : null;
+		this.cacheHandlerAdapters = options.isCacheHandlerAdapters();
+		this.viewCache = (options.getViewCacheSize() > 0) ? setup.obtainViewCache(options.getViewCacheSize()) : null;
+		this.exceptionResolverCache = options.isCacheExceptionResolvers() ? setup.getExceptionResolverCache() : null;
+		this.skipRendering = options.isSkipRendering();
+		this.bindRequestContext = options.isBindRequestContext();
+		this.useFlashMaps = options.isUseFlashMaps() && (setup.getFlashMapManager() != null);
+		this.resolveLocale = options.isResolveLocale();
 	}
 	
-	public Object getHandler() {
-		return this.handler;
-	}
-
-	public HandlerInterceptor[] getInterceptors() {
-		return this.interceptors;
-	}
-
-	public ModelAndView getMav() {
-		return this.mav;
-	}
-
-	public Exception getResolvedException() {
-		return this.resolvedException;
-	}
-
 	/**
 	 * Execute the request invoking the same Spring MVC components the {@link DispatcherServlet} does.
 	 * 
+	 * @param result records the outcome of the request; bound to the thread 
+	 * as the current RequestAttributes if enabled
 	 * @throws Exception if an exception occurs not handled by a HandlerExceptionResolver.
 	 */
-	public void execute(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+	public void execute(HttpServletRequest request, HttpServletResponse response, DispatchResult result) 
+			throws Exception {
 		try {
-			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
-			this.mvcSetup.getFlashMapManager().requestStarted(request);
-			doExecute(request, response);
+			if (this.bindRequestContext) {
+				RequestContextHolder.setRequestAttributes(result);
+			}
+			if (this.useFlashMaps) {
+				this.mvcSetup.getFlashMapManager().requestStarted(request);
+			}
+			doExecute(request, response, result);
 		}
 		finally {
-			this.mvcSetup.getFlashMapManager().requestCompleted(request);
-			RequestContextHolder.resetRequestAttributes();
+			try {
+				if (this.useFlashMaps) {
+					this.mvcSetup.getFlashMapManager().requestCompleted(request);
+				}
+			}
+			finally {
+				if (this.bindRequestContext) {
+					RequestContextHolder.resetRequestAttributes();
+					result.requestCompleted();
+				}
+			}
 		}
 	}
 
-	private void doExecute(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+	private void doExecute(HttpServletRequest request, HttpServletResponse response, DispatchResult result) 
+			throws Exception {
 		try {
-			initHandlerExecutionChain(request);
+			initHandlerExecutionChain(request, result);
 
-			if (this.handler == null) {
+			Object handler = result.getHandler();
+			if (handler == null) {
 				response.sendError(HttpServletResponse.SC_NOT_FOUND);
 				return;
 			}
 
-			List<HandlerInterceptor> interceptorList = (this.interceptors != null) ? 
-					Arrays.asList(this.interceptors) : new ArrayList<HandlerInterceptor>();
+			HandlerInterceptor[] interceptors = result.getInterceptors();
+			int interceptorCount = (interceptors != null) ? interceptors.length : 0;
 
-			for (HandlerInterceptor interceptor : interceptorList) {
-				if (!interceptor.preHandle(request, response, this.handler)) {
+			for (int i = 0; i < interceptorCount; i++) {
+				if (!interceptors[i].preHandle(request, response, handler)) {
 					return;
 				}
 			}
 
-			HandlerAdapter adapter = getHandlerAdapter();
-			this.mav = adapter.handle(request, response, this.handler);
-			updateDefaultViewName(request);
+			HandlerAdapter adapter = getHandlerAdapter(handler);
+			result.setMav(adapter.handle(request, response, handler));
+			updateDefaultViewName(request, result.getMav());
 
-			Collections.reverse(interceptorList);
-			for (HandlerInterceptor interceptor : interceptorList) {
-				interceptor.postHandle(request, response, this.handler, this.mav);
+			for (int i = interceptorCount - 1; i >= 0; i--) {
+				interceptors[i].postHandle(request, response, handler, result.getMav());
 			}
 		}
 		catch (Exception exception) {
-			processHandlerException(request, response, exception);
-			updateDefaultViewName(request);
+			processHandlerException(request, response, exception, result);
+			updateDefaultViewName(request, result.getMav());
 		}
 
-		if (this.mav == null) {
+		ModelAndView mav = result.getMav();
+		if (mav == null) {
 			return;
 		}
 
-		Locale locale = this.mvcSetup.getLocaleResolver().resolveLocale(request);
-		response.setLocale(locale);
+		if (isSkipRendering(request)) {
+			request.setAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, Boolean.TRUE);
+			return;
+		}
+
+		Locale locale;
+		if (this.resolveLocale) {
+			locale = this.mvcSetup.getLocaleResolver().resolveLocale(request);
+			response.setLocale(locale);
+		}
+		else {
+			locale = request.getLocale();
+		}
+
+		View view = resolveView(mav, locale);
+		view.render(mav.getModel(), request, response);
+	}
 
-		View view = resolveView(locale);
-		view.render(this.mav.getModel(), request, response);
+	private boolean isSkipRendering(HttpServletRequest request) {
+		Object value = request.getAttribute(MockMvc.SKIP_RENDERING_ATTRIBUTE);
+		return (value != null) ? Boolean.TRUE.equals(value) : this.skipRendering;
 	}
 
-	private void initHandlerExecutionChain(MockHttpServletRequest request) throws Exception {
-		for (HandlerMapping mapping : this.mvcSetup.getHandlerMappings()) {
+	private void initHandlerExecutionChain(HttpServletRequest request, DispatchResult result) throws Exception {
+		HandlerCacheKey cacheKey = null;
+		Map<String, Object> attributes = null;
+		if (this.handlerCache != null) {
+			cacheKey = new HandlerCacheKey(request);
+			CachedHandler cachedHandler = this.handlerCache.get(cacheKey);
+			if (cachedHandler != null) {
+				cachedHandler.replayAttributes(request);
+				result.setHandler(cachedHandler.getHandler(), cachedHandler.getInterceptors());
+				return;
+			}
+			attributes = getAttributes(request);
+		}
+		boolean cacheable = (this.handlerCache != null);
+		for (int i = 0; i < this.mvcSetup.getHandlerMappingCount(); i++) {
+			HandlerMapping mapping = this.mvcSetup.getHandlerMapping(i);
+			cacheable = cacheable && (mapping instanceof CacheableHandlerMapping) && 
+					((CacheableHandlerMapping) mapping).isCacheable();
 			HandlerExecutionChain chain = mapping.getHandler(request);
 			if (chain != null) {
-				this.handler = chain.getHandler();
-				this.interceptors = chain.getInterceptors();
-				return;
+				result.setHandler(chain.getHandler(), chain.getInterceptors());
+				break;
 			}
 		}
+		if (cacheable) {
+			this.handlerCache.put(cacheKey, new CachedHandler(result.getHandler(), result.getInterceptors(), 
+					getChangedAttributes(attributes, request)));
+		}
 	}
 
-	private HandlerAdapter getHandlerAdapter() {
-		for (HandlerAdapter adapter : this.mvcSetup.getHandlerAdapters()) {
-			if (adapter.supports(this.handler)) {
+	private static Map<String, Object> getAttributes(HttpServletRequest request) {
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		for (Enumeration<?> names = request.getAttributeNames(); names.hasMoreElements();) {
+			String name = (String) names.nextElement();
+			attributes.put(name, request.getAttribute(name));
+		}
+		return attributes;
+	}
+
+	/**
+	 * Return the request attributes that were added or changed since the given 
+	 * attributes were taken.
+	 */
+	private static Map<String, Object> getChangedAttributes(Map<String, Object> previous, HttpServletRequest request) {
+		Map<String, Object> changed = new HashMap<String, Object>();
+		for (Enumeration<?> names = request.getAttributeNames(); names.hasMoreElements();) {
+			String name = (String) names.nextElement();
+			Object value = request.getAttribute(name);
+			if (value != previous.get(name)) {
+				changed.put(name, value);
+			}
+		}
+		return changed;
+	}
+
+	private HandlerAdapter getHandlerAdapter(Object handler) {
+		Map<Class<?>, HandlerAdapter> cache = null;
+		Class<?> handlerType = null;
+		if (this.cacheHandlerAdapters) {
+			boolean isHandlerMethod = (handler instanceof HandlerMethod);
+			cache = this.mvcSetup.getHandlerAdapterCache(isHandlerMethod);
+			handlerType = isHandlerMethod ? ((HandlerMethod) handler).getBeanType() : handler.getClass();
+			HandlerAdapter adapter = cache.get(handlerType);
+			if (adapter != null) {
+				return adapter;
+			}
+		}
+		boolean cacheable = this.cacheHandlerAdapters;
+		for (int i = 0; i < this.mvcSetup.getHandlerAdapterCount(); i++) {
+			HandlerAdapter adapter = this.mvcSetup.getHandlerAdapter(i);
+			cacheable = cacheable && !(adapter instanceof NonCacheableHandlerAdapter);
+			if (adapter.supports(handler)) {
+				if (cacheable) {
+					cache.put(handlerType, adapter);
+				}
 				return adapter;
 			}
 		}
@@ -164,39 +262,90 @@ class MockDispatcher {
 				+ "]. Available adapters: [" + mvcSetup.getHandlerAdapters() + "]");
 	}
 
-	private void updateDefaultViewName(MockHttpServletRequest request) throws Exception {
-		if (this.mav != null && !this.mav.hasView()) {
+	private void updateDefaultViewName(HttpServletRequest request, ModelAndView mav) throws Exception {
+		if (mav != null && !mav.hasView()) {
 			String viewName = this.mvcSetup.getViewNameTranslator().getViewName(request);
-			this.mav.setViewName(viewName);
+			mav.setViewName(viewName);
 		}
 	}
 
-	private void processHandlerException(MockHttpServletRequest request, 
-										 MockHttpServletResponse response, 
-										 Exception exception) throws Exception {
-		for (HandlerExceptionResolver resolver : this.mvcSetup.getExceptionResolvers()) {
-			this.mav = resolver.resolveException(request, response, this.handler, exception);
-			if (this.mav != null) {
-				this.resolvedException = exception;
-				this.mav = this.mav.isEmpty() ? null : this.mav;
+	private void processHandlerException(HttpServletRequest request, 
+										 HttpServletResponse response, 
+										 Exception exception, 
+										 DispatchResult result) throws Exception {
+		ExceptionResolverCacheKey cacheKey = null;
+		int cachedIndex = -1;
+		if (this.exceptionResolverCache != null) {
+			cacheKey = new ExceptionResolverCacheKey(result.getHandler(), exception);
+			Integer index = this.exceptionResolverCache.get(cacheKey);
+			if (index != null) {
+				cachedIndex = index;
+				if (resolveException(cachedIndex, request, response, exception, result)) {
+					return;
+				}
+			}
+		}
+		for (int i = 0; i < this.mvcSetup.getExceptionResolverCount(); i++) {
+			if (i != cachedIndex && resolveException(i, request, response, exception, result)) {
+				if (cacheKey != null) {
+					this.exceptionResolverCache.put(cacheKey, i);
+				}
 				return;
 			}
 		}
 		throw exception;
 	}
+
+	private boolean resolveException(int resolverIndex, HttpServletRequest request, 
+			HttpServletResponse response, Exception exception, DispatchResult result) {
+
+		HandlerExceptionResolver resolver = this.mvcSetup.getExceptionResolver(resolverIndex);
+		ModelAndView mav = resolver.resolveException(request, response, result.getHandler(), exception);
+		result.setMav((mav != null && !mav.isEmpty()) ? mav : null);
+		if (mav != null) {
+			result.setResolvedException(exception);
+			return true;
+		}
+		return false;
+	}
 	
-	private View resolveView(Locale locale) throws Exception {
-		if (this.mav.isReference()) {
-			for (ViewResolver viewResolver : this.mvcSetup.getViewResolvers()) {
-				View view = viewResolver.resolveViewName(this.mav.getViewName(), locale);
+	private View resolveView(ModelAndView mav, Locale locale) throws Exception {
+		if (mav.isReference()) {
+			String viewName = mav.getViewName();
+			String cacheKey = null;
+			if (this.viewCache != null) {
+				cacheKey = viewName + "_" + locale;
+				View view = this.viewCache.get(cacheKey);
 				if (view != null) {
 					return view;
 				}
 			}
+			for (int i = 0; i < this.mvcSetup.getViewResolverCount(); i++) {
+				ViewResolver viewResolver = this.mvcSetup.getViewResolver(i);
+				View view = viewResolver.resolveViewName(viewName, locale);
+				if (view != null) {
+					if (cacheKey != null && isViewCacheable(viewResolver, viewName)) {
+						this.viewCache.put(cacheKey, view);
+					}
+					return view;
+				}
+			}
 		}
-		View view = this.mav.getView();
-		Assert.isTrue(view != null, "Could not resolve view from ModelAndView: <" + this.mav + ">");
+		View view = mav.getView();
+		Assert.isTrue(view != null, "Could not resolve view from ModelAndView: <" + mav + ">");
 		return view;
 	}
 
+	private static boolean isViewCacheable(ViewResolver viewResolver, String viewName) {
+		if (viewResolver instanceof ContentNegotiatingViewResolver) {
+			return false;
+		}
+		if (viewName.startsWith(UrlBasedViewResolver.REDIRECT_URL_PREFIX) || 
+				viewName.startsWith(UrlBasedViewResolver.FORWARD_URL_PREFIX)) {
+			return (viewResolver instanceof AbstractCachingViewResolver) && 
+					((AbstractCachingViewResolver) viewResolver).isCache();
+		}
+		return true;
+	}
+
 }
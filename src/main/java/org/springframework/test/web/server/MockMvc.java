@@ -16,13 +16,16 @@
 
 package org.springframework.test.web.server;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.Assert;
 import org.springframework.web.servlet.FlashMap;
-import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.support.RequestContextUtils;
 
 /**
@@ -53,22 +56,86 @@ import org.springframework.web.servlet.support.RequestContextUtils;
  */
 public class MockMvc {
 
+    /**
+     * Name of a request attribute with a Boolean value that overrides, for a 
+     * single request, whether views are rendered. If {@code true}, the request 
+     * is dispatched to the handler and interceptors and the resulting 
+     * ModelAndView is recorded, but the view is neither resolved nor rendered.
+     * @see org.springframework.test.web.server.request.DefaultRequestBuilder#skipRendering()
+     * @see DispatchOptions#setSkipRendering(boolean)
+     */
+    public static final String SKIP_RENDERING_ATTRIBUTE = MockMvc.class.getName() + ".SKIP_RENDERING";
+
+    /**
+     * Name of the request attribute set to {@code Boolean.TRUE} when view 
+     * rendering was skipped.
+     */
+    public static final String RENDERING_SKIPPED_ATTRIBUTE = MockMvc.class.getName() + ".RENDERING_SKIPPED";
+
     private final ServletContext servletContext;
 
-    private final MvcSetup mvcSetup;
+    private final FrozenMvcSetup mvcSetup;
+
+    private final BuildReport buildReport;
+
+    private final DispatchOptions dispatchOptions;
+
+    private final FilterChainResolver filterChainResolver;
+
+    private final MockDispatcher dispatcher;
 
     /** 
      * Protected constructor. Not for direct instantiation. 
      * @see org.springframework.test.web.server.setup.MockMvcBuilders
      */
     protected MockMvc(ServletContext servletContext, MvcSetup mvcSetup) {
+        this(servletContext, mvcSetup, null);
+    }
+
+    /** 
+     * Protected constructor. Not for direct instantiation. 
+     * @see org.springframework.test.web.server.setup.MockMvcBuilders
+     */
+    protected MockMvc(ServletContext servletContext, MvcSetup mvcSetup, BuildReport buildReport) {
+        this(servletContext, mvcSetup, buildReport, new DispatchOptions());
+    }
+
+    /** 
+     * Protected constructor. Not for direct instantiation. 
+     * @see org.springframework.test.web.server.setup.MockMvcBuilders
+     */
+    protected MockMvc(ServletContext servletContext, MvcSetup mvcSetup, BuildReport buildReport, 
+            DispatchOptions dispatchOptions) {
         this.servletContext = servletContext;
-        this.mvcSetup = mvcSetup;
+        this.mvcSetup = FrozenMvcSetup.freeze(mvcSetup);
+        this.buildReport = buildReport;
+        this.dispatchOptions = new DispatchOptions(dispatchOptions);
+        List<FilterMapping> filterMappings = this.dispatchOptions.getFilterMappings();
+        this.filterChainResolver = filterMappings.isEmpty() ? null : new FilterChainResolver(filterMappings);
+        this.dispatcher = new MockDispatcher(this.mvcSetup, this.dispatchOptions);
+    }
+
+    /**
+     * Return the report with the time taken by each phase of building this
+     * instance, or {@code null} if not available.
+     */
+    public BuildReport getBuildReport() {
+        return this.buildReport;
+    }
+
+    /**
+     * Return the Spring MVC components requests are dispatched to, along with
+     * the caches used during dispatch, if enabled.
+     */
+    public FrozenMvcSetup getMvcSetup() {
+        return this.mvcSetup;
     }
 
     /**
      * Build a request using the provided {@link RequestBuilder}, execute it,
      * and return a {@link ResultActions} instance that wraps the result.
+     * If a timeout is configured, the request is executed as described in
+     * {@link #perform(RequestBuilder, long)}.
      * 
 	 * @return a ResultActions instance, never {@code null}
 	 * @throws Exception if an exception occurs not handled by a HandlerExceptionResolver
@@ -77,30 +144,50 @@ public class MockMvc {
 	 * @see org.springframework.test.web.server.result.MockMvcResultActions
      */
     public ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+        long timeout = this.dispatchOptions.getTimeout();
+        return (timeout > 0) ? perform(requestBuilder, timeout) : execute(requestBuilder.buildRequest(this.servletContext));
+    }
+
+    /**
+     * Variant of {@link #perform(RequestBuilder)} that executes the request on 
+     * a worker thread and fails if it does not complete within the given time. 
+     * The worker sees the RequestContextHolder and LocaleContextHolder state 
+     * of the calling thread. If the time passes, an {@link AssertionError} is 
+     * raised with a dump of all threads in its message and the stack trace of 
+     * the worker as its cause, and the worker is interrupted. A worker that 
+     * ignores the interruption runs on in the background until the request ends.
+     * 
+     * @param timeout the maximum time in milliseconds, greater than 0
+     * @return a ResultActions instance, never {@code null}
+     * @throws Exception if an exception occurs not handled by a HandlerExceptionResolver
+     * 
+     * @see DispatchOptions#setTimeout(long)
+     */
+    public ResultActions perform(RequestBuilder requestBuilder, long timeout) throws Exception {
+        Assert.isTrue(timeout > 0, "Timeout must be greater than 0");
+        final MockHttpServletRequest request = requestBuilder.buildRequest(this.servletContext);
+        String description = "Request [" + request.getMethod() + " " + request.getRequestURI() + "]";
+        return TimeoutInvoker.invoke(new Callable<ResultActions>() {
+            public ResultActions call() throws Exception {
+                return execute(request);
+            }
+        }, timeout, description);
+    }
+
+    private ResultActions execute(MockHttpServletRequest request) throws Exception {
         
-    	final MockHttpServletRequest request = requestBuilder.buildRequest(this.servletContext);
-        final MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        DispatchResult result = new DispatchResult(request, response);
         
-        MockDispatcher dispatcher = new MockDispatcher(this.mvcSetup);
-        dispatcher.execute(request, response);
-
-		final Object handler = dispatcher.getHandler();
-		final HandlerInterceptor[] interceptors = dispatcher.getInterceptors();
-		final ModelAndView mav = dispatcher.getMav();
-		final Exception resolvedException = dispatcher.getResolvedException();
-
-        return new ResultActions() {
-        	
-			public ResultActions andExpect(ResultMatcher matcher) throws Exception {
-				matcher.match(request, response, handler, interceptors, mav, resolvedException);
-				return this;
-			}
-			
-			public ResultActions andPrint(ResultPrinter printer) throws Exception {
-				printer.print(request, response, handler, interceptors, mav, resolvedException);
-				return this;
-			}
-		};
+        Filter[] filters = (this.filterChainResolver != null) ? this.filterChainResolver.getFilters(request) : null;
+        if (filters != null && filters.length > 0) {
+            new DispatchingFilterChain(filters, this.dispatcher, result).execute(request, response);
+        }
+        else {
+            this.dispatcher.execute(request, response, result);
+        }
+
+        return result;
     }
 
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import org.springframework.web.servlet.HandlerAdapter;
+
+/**
+ * Marks a {@link HandlerAdapter} whose {@link HandlerAdapter#supports(Object)} 
+ * depends on the handler instance or on the state of the adapter rather than 
+ * on the type of the handler alone. 
+ * 
+ * <p>{@link MockMvc} remembers which adapter supports a handler type, or the 
+ * bean type of a {@link org.springframework.web.method.HandlerMethod}, and does
+ * not ask the adapters again for handlers of the same type. Adapters marked 
+ * with this interface are asked for every handler, and no adapter is 
+ * remembered for a handler type if they were asked before it.
+ *
+ * @see DispatchOptions#setCacheHandlerAdapters(boolean)
+ */
+public interface NonCacheableHandlerAdapter extends HandlerAdapter {
+
+}
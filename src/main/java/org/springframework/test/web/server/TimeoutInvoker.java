@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Runs a task on a daemon worker thread and waits for it up to a timeout. 
+ * The {@link RequestContextHolder} and {@link LocaleContextHolder} state of 
+ * the calling thread is exposed to the worker for the duration of the task. 
+ *
+ * <p>If the timeout passes, an {@link AssertionError} is raised whose message 
+ * contains a dump of all threads and whose cause carries the stack trace of 
+ * the worker at that moment. The worker is then interrupted and abandoned. 
+ * A worker that does not respond to interruption, e.g. one stuck in a loop 
+ * or in blocking I/O, keeps its pool thread until the task ends. Workers are 
+ * daemon threads, so they do not keep the JVM from exiting, but each such 
+ * worker adds a thread to the pool for the rest of the run.
+ */
+abstract class TimeoutInvoker {
+
+	private static final ExecutorService executor;
+
+	static {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mockmvc-worker-");
+		threadFactory.setDaemon(true);
+		executor = Executors.newCachedThreadPool(threadFactory);
+	}
+
+	/**
+	 * Run the given task on a worker thread.
+	 * @param task the task to run
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @param description describes the task in the error raised on timeout
+	 * @return the result of the task
+	 * @throws Exception an exception raised by the task
+	 */
+	public static <T> T invoke(Callable<T> task, long timeout, String description) throws Exception {
+		ContextPropagatingTask<T> worker = new ContextPropagatingTask<T>(task);
+		Future<T> future = executor.submit(worker);
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			AssertionError error = new AssertionError(description + " did not complete within " + timeout + 
+					" ms\n\n" + getThreadDump());
+			error.initCause(worker.getStackTraceException());
+			future.cancel(true);
+			throw error;
+		}
+		catch (InterruptedException ex) {
+			future.cancel(true);
+			throw ex;
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Return the name, state, and stack trace of all live threads.
+	 */
+	private static String getThreadDump() {
+		StringBuilder sb = new StringBuilder("Thread dump:\n");
+		for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+			Thread thread = entry.getKey();
+			sb.append("\n\"").append(thread.getName()).append("\"");
+			if (thread.isDaemon()) {
+				sb.append(" daemon");
+			}
+			sb.append(" ").append(thread.getState()).append("\n");
+			for (StackTraceElement element : entry.getValue()) {
+				sb.append("\tat ").append(element).append("\n");
+			}
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Wraps a task in order to expose the context of the submitting thread
+	 * and to keep track of the thread the task runs on. 
+	 */
+	private static class ContextPropagatingTask<T> implements Callable<T> {
+
+		private final Callable<T> task;
+
+		private final RequestAttributes requestAttributes;
+
+		private final LocaleContext localeContext;
+
+		private volatile Thread thread;
+
+		public ContextPropagatingTask(Callable<T> task) {
+			this.task = task;
+			this.requestAttributes = RequestContextHolder.getRequestAttributes();
+			this.localeContext = LocaleContextHolder.getLocaleContext();
+		}
+
+		public T call() throws Exception {
+			this.thread = Thread.currentThread();
+			RequestContextHolder.setRequestAttributes(this.requestAttributes);
+			LocaleContextHolder.setLocaleContext(this.localeContext);
+			try {
+				return this.task.call();
+			}
+			finally {
+				RequestContextHolder.resetRequestAttributes();
+				LocaleContextHolder.resetLocaleContext();
+				this.thread = null;
+			}
+		}
+
+		/**
+		 * Return an exception with the current stack trace of the worker thread.
+		 */
+		public Throwable getStackTraceException() {
+			Thread thread = this.thread;
+			if (thread == null) {
+				return new IllegalStateException("Task has not started or has already completed");
+			}
+			Throwable stackTrace = new IllegalStateException("Stack trace of " + thread.getName() + 
+					" (" + thread.getState() + ")");
+			stackTrace.setStackTrace(thread.getStackTrace());
+			return stackTrace;
+		}
+	}
+
+}
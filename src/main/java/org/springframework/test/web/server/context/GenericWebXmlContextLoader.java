@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.springframework.test.web.server.samples.context;
+package org.springframework.test.web.server.context;
 
 import javax.servlet.RequestDispatcher;
 
@@ -31,10 +31,35 @@ import org.springframework.test.context.support.AbstractContextLoader;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.GenericWebApplicationContext;
 
+/**
+ * A TestContext framework {@link org.springframework.test.context.ContextLoader} 
+ * that loads a {@link GenericWebApplicationContext} from XML configuration 
+ * files and sets it up with a {@link MockServletContext}.
+ * 
+ * <p>Sub-classes provide the location of the web application root directory
+ * through a default constructor, e.g.:
+ * <pre>
+ * public class MyContextLoader extends GenericWebXmlContextLoader {
+ * 
+ *     public MyContextLoader() {
+ *         super("src/main/webapp", false);
+ *     }
+ * }
+ * </pre>
+ * 
+ * <p>Use together with {@link MockMvcTestExecutionListener} to have a 
+ * MockMvc built once per cached context and injected into tests.
+ */
 public class GenericWebXmlContextLoader extends AbstractContextLoader {
 
 	private final MockServletContext servletContext;
 	
+	/**
+	 * Create a loader for the given web application root directory.
+	 * @param warRootDir the web application root directory
+	 * @param isClasspathRelative whether the directory is relative to the 
+	 * classpath rather than to the JVM working directory or file system
+	 */
 	public GenericWebXmlContextLoader(String warRootDir, boolean isClasspathRelative) {
 		ResourceLoader resourceLoader = isClasspathRelative ? new DefaultResourceLoader() : new FileSystemResourceLoader();
 		this.servletContext = initServletContext(warRootDir, resourceLoader);
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+import org.springframework.test.web.server.MockMvc;
+import org.springframework.test.web.server.setup.MockMvcBuilders;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * A {@link org.springframework.test.context.TestExecutionListener} that builds 
+ * a {@link MockMvc} for the {@link WebApplicationContext} of a test and 
+ * registers it as a singleton named {@value #MOCK_MVC_BEAN_NAME} in that context.
+ * 
+ * <p>Since the TestContext framework caches contexts, the MockMvc is built 
+ * once per cached context and reused by all tests sharing the context, until
+ * the context is closed. Tests obtain it through {@code @Autowired}, which 
+ * requires this listener to be declared before the 
+ * {@link org.springframework.test.context.support.DependencyInjectionTestExecutionListener}:
+ * <pre>
+ * &#064;RunWith(SpringJUnit4ClassRunner.class)
+ * &#064;ContextConfiguration(loader=MyContextLoader.class, locations="/servlet-context.xml")
+ * &#064;TestExecutionListeners({MockMvcTestExecutionListener.class, DependencyInjectionTestExecutionListener.class})
+ * public class MyTests {
+ * 
+ *     &#064;Autowired
+ *     private MockMvc mockMvc;
+ * }
+ * </pre>
+ * 
+ * <p>The number of MockMvc instances built (cache misses) and reused (cache hits)
+ * is available through {@link #getHitCount()} and {@link #getMissCount()}. To
+ * have both logged at info level when the JVM exits, set the system property
+ * {@value #STATISTICS_PROPERTY_NAME} to "true".
+ * 
+ * @see GenericWebXmlContextLoader
+ */
+public class MockMvcTestExecutionListener extends AbstractTestExecutionListener {
+
+	/**
+	 * The name under which the MockMvc is registered in the test context.
+	 */
+	public static final String MOCK_MVC_BEAN_NAME = "org.springframework.test.web.server.mockMvc";
+
+	/**
+	 * System property that turns on logging of the hit and miss counts when
+	 * the JVM exits, if set to "true".
+	 */
+	public static final String STATISTICS_PROPERTY_NAME = "spring.test.mvc.contextStatistics";
+
+	private static final Log logger = LogFactory.getLog(MockMvcTestExecutionListener.class);
+
+	private static int hitCount;
+
+	private static int missCount;
+
+	private static boolean shutdownHookRegistered;
+
+	@Override
+	public void prepareTestInstance(TestContext testContext) throws Exception {
+		ApplicationContext context = testContext.getApplicationContext();
+		Assert.state(context instanceof WebApplicationContext, "Expected a WebApplicationContext");
+		Assert.state(context instanceof ConfigurableApplicationContext, "Expected a ConfigurableApplicationContext");
+		ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) context).getBeanFactory();
+		synchronized (beanFactory) {
+			if (beanFactory.containsSingleton(MOCK_MVC_BEAN_NAME)) {
+				recordHit();
+				return;
+			}
+			MockMvc mockMvc = MockMvcBuilders.webApplicationContextSetup((WebApplicationContext) context).build();
+			beanFactory.registerSingleton(MOCK_MVC_BEAN_NAME, mockMvc);
+			recordMiss();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Built MockMvc for test context " + context.getDisplayName());
+			}
+		}
+	}
+
+	/**
+	 * Return the number of times a MockMvc was reused.
+	 */
+	public static synchronized int getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Return the number of times a MockMvc was built.
+	 */
+	public static synchronized int getMissCount() {
+		return missCount;
+	}
+
+	private static synchronized void recordHit() {
+		hitCount++;
+	}
+
+	private static synchronized void recordMiss() {
+		missCount++;
+		if (!shutdownHookRegistered && Boolean.getBoolean(STATISTICS_PROPERTY_NAME)) {
+			Runtime.getRuntime().addShutdownHook(new Thread("MockMvc test context statistics") {
+				public void run() {
+					logger.info("MockMvc test context cache: hits = " + getHitCount() + ", misses = " + getMissCount());
+				}
+			});
+			shutdownHookRegistered = true;
+		}
+	}
+
+}
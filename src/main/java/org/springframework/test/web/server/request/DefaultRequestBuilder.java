@@ -129,6 +129,14 @@ public class DefaultRequestBuilder implements RequestBuilder {
         return this;
     }
 
+    /**
+     * Record the ModelAndView without resolving and rendering the view.
+     * @see MockMvc#SKIP_RENDERING_ATTRIBUTE
+     */
+    public DefaultRequestBuilder skipRendering() {
+        return requestAttr(MockMvc.SKIP_RENDERING_ATTRIBUTE, Boolean.TRUE);
+    }
+
     public DefaultRequestBuilder sessionAttr(String name, Object value) {
         Assert.hasLength(name, "'name' must not be empty");
         Assert.notNull(value, "'value' must not be null");
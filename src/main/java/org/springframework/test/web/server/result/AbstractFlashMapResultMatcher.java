@@ -37,9 +37,13 @@ public abstract class AbstractFlashMapResultMatcher implements ResultMatcher {
 							Exception resolvedException) throws Exception {
 		
 		FlashMap flashMap = RequestContextUtils.getOutputFlashMap(request);
-		matchFlashMap(flashMap);
+		matchFlashMap((flashMap != null) ? flashMap : new FlashMap());
 	}
 
+	/**
+	 * Match the "output" FlashMap, which is empty if no flash map was created 
+	 * for the request, e.g. because flash maps were turned off.
+	 */
 	protected abstract void matchFlashMap(FlashMap flashMap) throws Exception;
 
 }
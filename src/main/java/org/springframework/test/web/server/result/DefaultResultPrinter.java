@@ -22,6 +22,7 @@ import java.io.UnsupportedEncodingException;
 
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.server.MockMvc;
 import org.springframework.test.web.server.ResultPrinter;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
@@ -61,6 +62,7 @@ public class DefaultResultPrinter implements ResultPrinter {
 		printHandler(handler);
 		printResolvedException(exception);
 		printModelAndView(mav);
+		printRendering(request, mav);
 		printResponse(response);
 
 		this.writer.println();
@@ -156,6 +158,16 @@ public class DefaultResultPrinter implements ResultPrinter {
 		}
 	}
 
+	/**
+	 * Print whether the view was rendered, if there was a view to render.
+	 */
+	protected void printRendering(MockHttpServletRequest request, ModelAndView mav) {
+		if (mav != null) {
+			boolean skipped = Boolean.TRUE.equals(request.getAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE));
+			printValue("Rendering", skipped ? "skipped (model-only dispatch)" : "performed");
+		}
+	}
+
 	/**
 	 * Print the HttpServletResponse.
 	 */
@@ -16,13 +16,23 @@
 
 package org.springframework.test.web.server.setup;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.test.web.server.BuildReport;
+import org.springframework.test.web.server.CacheableHandlerMapping;
+import org.springframework.test.web.server.DispatchOptions;
+import org.springframework.test.web.server.FrozenMvcSetup;
 import org.springframework.test.web.server.MockMvc;
 import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.NonCacheableHandlerAdapter;
+import org.springframework.test.web.server.RequestBuilder;
+import org.springframework.util.Assert;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.servlet.FlashMapManager;
 import org.springframework.web.servlet.HandlerAdapter;
@@ -35,63 +45,247 @@ import org.springframework.web.servlet.ViewResolver;
 /**
  * An abstract class for building {@link MockMvc} instances.
  *
+ * <p>Builder options return the builder. Concrete builders override them 
+ * with covariant return types, so that options can be chained with the 
+ * options of the concrete builder.
+ *
  * @author Rossen Stoyanchev
  */
 public abstract class AbstractMockMvcBuilder implements MockMvcBuilder {
 
+	private static final Log logger = LogFactory.getLog(AbstractMockMvcBuilder.class);
+
+	private int warmUpIterations;
+
+	private List<RequestBuilder> warmUpRequests;
+
+	private final DispatchOptions dispatchOptions = new DispatchOptions();
+
+	/**
+	 * Dispatch requests against the MockMvc instance before it is returned
+	 * from {@link #build()}. The time taken is recorded as the "warmUp" phase
+	 * of the {@link BuildReport}.
+	 * <p>Derived requests are dispatched to the actual handlers with the
+	 * request methods they declare, so supply requests explicitly if handlers
+	 * must not be invoked with arbitrary input.
+	 * @param iterations how many times to dispatch each request
+	 * @param requests the requests to dispatch; if none are given, a request
+	 * is derived from each registered {@code @RequestMapping} method
+	 */
+	public AbstractMockMvcBuilder warmUp(int iterations, RequestBuilder... requests) {
+		Assert.isTrue(iterations >= 0, "Warm-up iterations must not be negative");
+		this.warmUpIterations = iterations;
+		this.warmUpRequests = Arrays.asList(requests);
+		return this;
+	}
+
+	/**
+	 * Cache the handler and interceptors resolved for requests with the same 
+	 * method, URI, and "Accept" and "Content-Type" headers, provided the handler
+	 * mappings declare themselves cacheable. Request attributes set by handler 
+	 * mappings such as URI template variables are replayed on a cache hit.
+	 * @param maxSize the maximum number of cached entries
+	 * @see CacheableHandlerMapping
+	 */
+	public AbstractMockMvcBuilder cacheHandlers(int maxSize) {
+		this.dispatchOptions.setHandlerCacheSize(maxSize);
+		return this;
+	}
+
+	/**
+	 * Whether to remember the HandlerAdapter that supports each handler type 
+	 * rather than asking all adapters for every request. 
+	 * <p>The default is "true". Adapters whose support for a handler does not 
+	 * depend on its type alone should implement {@link NonCacheableHandlerAdapter}.
+	 */
+	public AbstractMockMvcBuilder setCacheHandlerAdapters(boolean cacheHandlerAdapters) {
+		this.dispatchOptions.setCacheHandlerAdapters(cacheHandlerAdapters);
+		return this;
+	}
+
+	/**
+	 * Cache the View resolved for each view name and locale, up to the given 
+	 * number of views. Useful with ViewResolvers that do not cache views. 
+	 * Hits and misses are available through {@link MockMvc#getMvcSetup()}.
+	 * @see DispatchOptions#setViewCacheSize(int)
+	 */
+	public AbstractMockMvcBuilder cacheViews(int maxSize) {
+		this.dispatchOptions.setViewCacheSize(maxSize);
+		return this;
+	}
+
+	/**
+	 * Whether to remember which HandlerExceptionResolver resolved an exception
+	 * by handler type and exception class, and try that resolver first for 
+	 * later exceptions. 
+	 * @see DispatchOptions#setCacheExceptionResolvers(boolean)
+	 */
+	public AbstractMockMvcBuilder setCacheExceptionResolvers(boolean cacheExceptionResolvers) {
+		this.dispatchOptions.setCacheExceptionResolvers(cacheExceptionResolvers);
+		return this;
+	}
+
+	/**
+	 * Whether to record the ModelAndView of requests without resolving and
+	 * rendering the view. May be overridden per request.
+	 * @see MockMvc#SKIP_RENDERING_ATTRIBUTE
+	 */
+	public AbstractMockMvcBuilder setSkipRendering(boolean skipRendering) {
+		this.dispatchOptions.setSkipRendering(skipRendering);
+		return this;
+	}
+
+	/**
+	 * Fail requests that do not complete within the given number of milliseconds.
+	 * Requests are then executed on a worker thread, which is interrupted and 
+	 * abandoned if the time passes.
+	 * @see DispatchOptions#setTimeout(long)
+	 */
+	public AbstractMockMvcBuilder setTimeout(long timeout) {
+		this.dispatchOptions.setTimeout(timeout);
+		return this;
+	}
+
+	/**
+	 * Whether to bind requests to the thread through RequestContextHolder.
+	 * @see DispatchOptions#setBindRequestContext(boolean)
+	 */
+	public AbstractMockMvcBuilder setBindRequestContext(boolean bindRequestContext) {
+		this.dispatchOptions.setBindRequestContext(bindRequestContext);
+		return this;
+	}
+
+	/**
+	 * Whether to invoke the FlashMapManager. Turn off only if no handler 
+	 * uses flash attributes.
+	 * @see DispatchOptions#setUseFlashMaps(boolean)
+	 */
+	public AbstractMockMvcBuilder setUseFlashMaps(boolean useFlashMaps) {
+		this.dispatchOptions.setUseFlashMaps(useFlashMaps);
+		return this;
+	}
+
+	/**
+	 * Whether to resolve the locale for rendering through the LocaleResolver.
+	 * @see DispatchOptions#setResolveLocale(boolean)
+	 */
+	public AbstractMockMvcBuilder setResolveLocale(boolean resolveLocale) {
+		this.dispatchOptions.setResolveLocale(resolveLocale);
+		return this;
+	}
+
+	/**
+	 * Add filters that apply to all requests. Requests pass through the filters
+	 * in the order in which they were added before they are dispatched.
+	 * Filters are not initialized by MockMvc.
+	 */
+	public AbstractMockMvcBuilder addFilters(Filter... filters) {
+		for (Filter filter : filters) {
+			this.dispatchOptions.addFilter(filter);
+		}
+		return this;
+	}
+
+	/**
+	 * Add a filter that applies to requests matching any of the given Servlet
+	 * URL patterns, e.g. "/secure/*" or "*.json".
+	 * @see #addFilters(Filter...)
+	 */
+	public AbstractMockMvcBuilder addFilter(Filter filter, String... urlPatterns) {
+		this.dispatchOptions.addFilter(filter, urlPatterns);
+		return this;
+	}
+
 	/**
 	 * Build a {@link MockMvc} instance.
+	 * <p>The time taken by each phase of the build is recorded in a 
+	 * {@link BuildReport} available from {@link MockMvc#getBuildReport()}.
+	 * @see BuildSummary
 	 */
 	public final MockMvc build() {
 
+		BuildReport report = new BuildReport(getBuilderKey());
+		long time = System.nanoTime();
+
 		ServletContext servletContext = initServletContext();
+		time = report.addPhase("initServletContext", time);
+
 		WebApplicationContext wac = initWebApplicationContext(servletContext);
 		if (wac != null) {
+			if (wac.getServletContext() != null) {
+				// e.g. a pooled context initialized with another ServletContext
+				servletContext = wac.getServletContext();
+			}
 			servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, wac);
+			webApplicationContextInitialized(wac);
 		}
+		time = report.addPhase("initWebApplicationContext", time);
 
-		final List<HandlerMapping> handlerMappings = initHandlerMappings(wac);
-		final List<HandlerAdapter> handlerAdapters = initHandlerAdapters(wac);
-		final List<HandlerExceptionResolver> exceptionResolvers = initHandlerExceptionResolvers(wac);
-		final List<ViewResolver> viewResolvers = initViewResolvers(wac);
-		final RequestToViewNameTranslator viewNameTranslator = initViewNameTranslator(wac);
-		final LocaleResolver localeResolver = initLocaleResolver(wac);
-		final FlashMapManager flashMapManager = initFlashMapManager(wac);
-		
-		MvcSetup mvcSetup = new MvcSetup() {
-
-			public List<HandlerMapping> getHandlerMappings() {
-				return Collections.unmodifiableList(handlerMappings);
-			}
+		MvcSetup mvcSetup = getCachedMvcSetup(wac);
+		time = report.addPhase("getCachedMvcSetup", time);
 
-			public List<HandlerAdapter> getHandlerAdapters() {
-				return Collections.unmodifiableList(handlerAdapters);
-			}
+		if (mvcSetup == null) {
+			List<HandlerMapping> handlerMappings = initHandlerMappings(wac);
+			time = report.addPhase("initHandlerMappings", time);
+			List<HandlerAdapter> handlerAdapters = initHandlerAdapters(wac);
+			time = report.addPhase("initHandlerAdapters", time);
+			List<HandlerExceptionResolver> exceptionResolvers = initHandlerExceptionResolvers(wac);
+			time = report.addPhase("initHandlerExceptionResolvers", time);
+			List<ViewResolver> viewResolvers = initViewResolvers(wac);
+			time = report.addPhase("initViewResolvers", time);
+			RequestToViewNameTranslator viewNameTranslator = initViewNameTranslator(wac);
+			time = report.addPhase("initViewNameTranslator", time);
+			LocaleResolver localeResolver = initLocaleResolver(wac);
+			time = report.addPhase("initLocaleResolver", time);
+			FlashMapManager flashMapManager = initFlashMapManager(wac);
+			time = report.addPhase("initFlashMapManager", time);
 
-			public List<ViewResolver> getViewResolvers() {
-				return Collections.unmodifiableList(viewResolvers);
-			}
+			mvcSetup = new FrozenMvcSetup(handlerMappings, handlerAdapters, exceptionResolvers, 
+					viewResolvers, viewNameTranslator, localeResolver, flashMapManager);
 
-			public List<HandlerExceptionResolver> getExceptionResolvers() {
-				return Collections.unmodifiableList(exceptionResolvers);
-			}
+			mvcSetupInitialized(mvcSetup, servletContext, wac);
+			time = report.addPhase("mvcSetupInitialized", time);
+		}
 
-			public RequestToViewNameTranslator getViewNameTranslator() {
-				return viewNameTranslator;
-			}
+		MockMvc mockMvc = new MockMvc(servletContext, mvcSetup, report, this.dispatchOptions) {};
 
-			public LocaleResolver getLocaleResolver() {
-				return localeResolver;
-			}
+		if (this.warmUpIterations > 0) {
+			performWarmUp(mockMvc, mvcSetup);
+			time = report.addPhase("warmUp", time);
+		}
 
-			public FlashMapManager getFlashMapManager() {
-				return flashMapManager;
-			}
-		};
+		BuildSummary.record(report);
 
-		mvcSetupInitialized(mvcSetup, servletContext, wac);
+		return mockMvc;
+	}
+
+	private void performWarmUp(MockMvc mockMvc, MvcSetup mvcSetup) {
+		boolean derived = this.warmUpRequests.isEmpty();
+		List<RequestBuilder> requests = derived ? WarmUpRequests.deriveRequests(mvcSetup) : this.warmUpRequests;
+		for (int i = 0; i < this.warmUpIterations; i++) {
+			for (RequestBuilder request : requests) {
+				try {
+					mockMvc.perform(request);
+				}
+				catch (Exception ex) {
+					if (!derived) {
+						throw new IllegalStateException("Warm-up request failed", ex);
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Ignoring failure of derived warm-up request: " + ex);
+					}
+				}
+			}
+		}
+	}
 
-		return new MockMvc(servletContext, mvcSetup) {};
+	/**
+	 * Return a key that identifies builders with the same configuration in 
+	 * {@link BuildReport}s and in the {@link BuildSummary}.
+	 * <p>The default implementation returns the builder class name.
+	 */
+	protected String getBuilderKey() {
+		return getClass().getName();
 	}
 
 	/**
@@ -100,12 +294,33 @@ public abstract class AbstractMockMvcBuilder implements MockMvcBuilder {
 	protected abstract ServletContext initServletContext();
 
 	/**
-	 * Return the WebApplicationContext to use, possibly {@code null}.
+	 * Return the WebApplicationContext to use, possibly {@code null}. If the
+	 * context has a ServletContext, that ServletContext is used from then on.
 	 * @param servletContext the ServletContext returned 
 	 * from {@link #initServletContext()}
 	 */
 	protected abstract WebApplicationContext initWebApplicationContext(ServletContext servletContext);
 
+	/**
+	 * A hook for sub-classes invoked with the WebApplicationContext returned from
+	 * {@link #initWebApplicationContext(ServletContext)}, if any, before Spring MVC 
+	 * components are looked up in it.
+	 */
+	protected void webApplicationContextInitialized(WebApplicationContext wac) {
+	}
+
+	/**
+	 * Return an MvcSetup previously initialized for the given WebApplicationContext,
+	 * or {@code null} in which case a new one is initialized through the
+	 * {@code init*} methods and {@link #mvcSetupInitialized} is invoked.
+	 * <p>The default implementation returns {@code null}.
+	 * @param wac the WebApplicationContext returned from
+	 * {@link #initWebApplicationContext(ServletContext)}
+	 */
+	protected MvcSetup getCachedMvcSetup(WebApplicationContext wac) {
+		return null;
+	}
+
 	/**
 	 * Return the HandlerMappings to use to map requests.
 	 * @param wac the fully initialized Spring application context
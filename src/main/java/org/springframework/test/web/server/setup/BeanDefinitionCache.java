@@ -0,0 +1,360 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Caches the bean definitions parsed from XML configuration files by
+ * {@link MockMvcXmlWebApplicationContext}s, so that contexts with the same 
+ * configuration register copies of the cached definitions rather than reading, 
+ * validating, and parsing the same XML again.
+ * 
+ * <p>Entries are keyed by the config locations, the resources they resolve to, 
+ * and the active and default profiles, and are valid as long as none of the 
+ * resources read, including imported ones and the classes found by component 
+ * scanning, was modified, and as long as the location patterns resolved while
+ * parsing, e.g. the base packages of component scans, still resolve to the same
+ * resources. Checking this means resolving those patterns again, which is far
+ * cheaper than reading the classes they match but still walks the scanned
+ * packages. Definitions are deep
+ * copied in and out of the cache since bean factory post-processors, e.g. for 
+ * placeholder resolution, modify them in place.
+ */
+abstract class BeanDefinitionCache {
+
+	private static final Map<Object, SoftReference<CachedBeanDefinitions>> cache = 
+			new HashMap<Object, SoftReference<CachedBeanDefinitions>>();
+
+	/**
+	 * Return the cached definitions for the given key, or {@code null} if there
+	 * are none or if any of the resources they were parsed from was modified.
+	 * @param key the cache key
+	 * @param resolver the resolver to resolve the recorded location patterns with
+	 */
+	public static CachedBeanDefinitions get(Object key, ResourcePatternResolver resolver) {
+		CachedBeanDefinitions definitions;
+		synchronized (cache) {
+			SoftReference<CachedBeanDefinitions> ref = cache.get(key);
+			definitions = (ref != null) ? ref.get() : null;
+		}
+		return (definitions != null && !definitions.isStale(resolver)) ? definitions : null;
+	}
+
+	/**
+	 * Cache the definitions registered in the given bean factory.
+	 * @param key the cache key
+	 * @param beanFactory the bean factory with the parsed definitions only
+	 * @param resources the resources the definitions were parsed from
+	 * @param resolvedPatterns the location patterns resolved while parsing, 
+	 * e.g. by component scanning, and the resources they resolved to
+	 */
+	public static void put(Object key, DefaultListableBeanFactory beanFactory, List<Resource> resources, 
+			Map<String, Resource[]> resolvedPatterns) {
+
+		CachedBeanDefinitions definitions = CachedBeanDefinitions.create(beanFactory, resources, resolvedPatterns);
+		if (definitions != null) {
+			synchronized (cache) {
+				cache.put(key, new SoftReference<CachedBeanDefinitions>(definitions));
+			}
+		}
+	}
+
+	public static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Return the URLs of the given resources, or their descriptions for
+	 * resources that cannot be resolved to a URL.
+	 */
+	static List<String> getResourceUrls(List<Resource> resources) {
+		List<String> urls = new ArrayList<String>(resources.size());
+		for (Resource resource : resources) {
+			try {
+				urls.add(resource.getURL().toString());
+			}
+			catch (IOException ex) {
+				urls.add(resource.getDescription());
+			}
+		}
+		return urls;
+	}
+
+	/**
+	 * Return a deep copy of the given bean definition, or {@code null} if it 
+	 * cannot be copied.
+	 */
+	static BeanDefinition copyBeanDefinition(BeanDefinition original) {
+		if (!(original instanceof AbstractBeanDefinition)) {
+			return null;
+		}
+		AbstractBeanDefinition copy = ((AbstractBeanDefinition) original).cloneBeanDefinition();
+
+		MutablePropertyValues pvs = copy.getPropertyValues();
+		List<PropertyValue> pvList = pvs.getPropertyValueList();
+		for (int i = 0; i < pvList.size(); i++) {
+			PropertyValue pv = pvList.get(i);
+			pvs.setPropertyValueAt(new PropertyValue(pv, copyValue(pv.getValue())), i);
+		}
+
+		ConstructorArgumentValues originalArgs = copy.getConstructorArgumentValues();
+		if (!originalArgs.isEmpty()) {
+			ConstructorArgumentValues args = new ConstructorArgumentValues();
+			for (Map.Entry<Integer, ValueHolder> entry : originalArgs.getIndexedArgumentValues().entrySet()) {
+				args.addIndexedArgumentValue(entry.getKey(), copyValueHolder(entry.getValue()));
+			}
+			for (ValueHolder valueHolder : originalArgs.getGenericArgumentValues()) {
+				args.addGenericArgumentValue(copyValueHolder(valueHolder));
+			}
+			copy.setConstructorArgumentValues(args);
+		}
+		return copy;
+	}
+
+	private static ValueHolder copyValueHolder(ValueHolder original) {
+		ValueHolder copy = new ValueHolder(copyValue(original.getValue()), original.getType(), original.getName());
+		copy.setSource(original.getSource());
+		return copy;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object copyValue(Object value) {
+		if (value instanceof BeanDefinitionHolder) {
+			BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+			BeanDefinition copy = copyBeanDefinition(holder.getBeanDefinition());
+			return (copy != null) ? new BeanDefinitionHolder(copy, holder.getBeanName(), holder.getAliases()) : value;
+		}
+		else if (value instanceof BeanDefinition) {
+			BeanDefinition copy = copyBeanDefinition((BeanDefinition) value);
+			return (copy != null) ? copy : value;
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue original = (TypedStringValue) value;
+			TypedStringValue copy = new TypedStringValue(original.getValue());
+			if (original.hasTargetType()) {
+				copy.setTargetType(original.getTargetType());
+			}
+			else {
+				copy.setTargetTypeName(original.getTargetTypeName());
+			}
+			copy.setSpecifiedTypeName(original.getSpecifiedTypeName());
+			copy.setSource(original.getSource());
+			if (original.isDynamic()) {
+				copy.setDynamic();
+			}
+			return copy;
+		}
+		else if (value instanceof ManagedArray) {
+			ManagedArray original = (ManagedArray) value;
+			ManagedArray copy = new ManagedArray(original.getElementTypeName(), original.size());
+			copyList(original, copy);
+			return copy;
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList original = (ManagedList) value;
+			ManagedList copy = new ManagedList(original.size());
+			copy.setElementTypeName(original.getElementTypeName());
+			copyList(original, copy);
+			return copy;
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet original = (ManagedSet) value;
+			ManagedSet copy = new ManagedSet(original.size());
+			copy.setSource(original.getSource());
+			copy.setElementTypeName(original.getElementTypeName());
+			copy.setMergeEnabled(original.isMergeEnabled());
+			for (Object element : original) {
+				copy.add(copyValue(element));
+			}
+			return copy;
+		}
+		else if (value instanceof ManagedMap) {
+			ManagedMap<Object, Object> original = (ManagedMap) value;
+			ManagedMap<Object, Object> copy = new ManagedMap<Object, Object>(original.size());
+			copy.setSource(original.getSource());
+			copy.setKeyTypeName(original.getKeyTypeName());
+			copy.setValueTypeName(original.getValueTypeName());
+			copy.setMergeEnabled(original.isMergeEnabled());
+			for (Map.Entry<Object, Object> entry : original.entrySet()) {
+				copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+			}
+			return copy;
+		}
+		else if (value instanceof ManagedProperties) {
+			ManagedProperties original = (ManagedProperties) value;
+			ManagedProperties copy = new ManagedProperties();
+			copy.setSource(original.getSource());
+			copy.setMergeEnabled(original.isMergeEnabled());
+			for (Map.Entry<Object, Object> entry : original.entrySet()) {
+				copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+			}
+			return copy;
+		}
+		else if (value instanceof Properties) {
+			Properties copy = new Properties();
+			copy.putAll((Properties) value);
+			return copy;
+		}
+		return value;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void copyList(ManagedList original, ManagedList copy) {
+		copy.setSource(original.getSource());
+		copy.setMergeEnabled(original.isMergeEnabled());
+		for (Object element : original) {
+			copy.add(copyValue(element));
+		}
+	}
+
+
+	/**
+	 * The bean definitions and aliases parsed from a set of XML files.
+	 */
+	static class CachedBeanDefinitions {
+
+		private final Map<String, BeanDefinition> beanDefinitions;
+
+		private final Map<String, String[]> aliases;
+
+		private final List<Resource> resources;
+
+		private final long[] lastModified;
+
+		private final Map<String, List<String>> patternUrls;
+
+		private CachedBeanDefinitions(Map<String, BeanDefinition> beanDefinitions, Map<String, String[]> aliases, 
+				List<Resource> resources, long[] lastModified, Map<String, List<String>> patternUrls) {
+
+			this.beanDefinitions = beanDefinitions;
+			this.aliases = aliases;
+			this.resources = resources;
+			this.lastModified = lastModified;
+			this.patternUrls = patternUrls;
+		}
+
+		/**
+		 * Copy the definitions of the given bean factory, or return {@code null}
+		 * if any of them cannot be copied or the resources have no last-modified time.
+		 */
+		static CachedBeanDefinitions create(DefaultListableBeanFactory beanFactory, List<Resource> resources, 
+				Map<String, Resource[]> resolvedPatterns) {
+
+			Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+			Map<String, String[]> aliases = new HashMap<String, String[]>();
+			for (String beanName : beanFactory.getBeanDefinitionNames()) {
+				BeanDefinition copy = copyBeanDefinition(beanFactory.getBeanDefinition(beanName));
+				if (copy == null) {
+					return null;
+				}
+				beanDefinitions.put(beanName, copy);
+				String[] beanAliases = beanFactory.getAliases(beanName);
+				if (beanAliases.length > 0) {
+					aliases.put(beanName, beanAliases);
+				}
+			}
+			List<Resource> allResources = new ArrayList<Resource>(resources);
+			Map<String, List<String>> patternUrls = new LinkedHashMap<String, List<String>>();
+			for (Map.Entry<String, Resource[]> entry : resolvedPatterns.entrySet()) {
+				List<Resource> matched = Arrays.asList(entry.getValue());
+				allResources.addAll(matched);
+				patternUrls.put(entry.getKey(), getResourceUrls(matched));
+			}
+			long[] lastModified = getLastModified(allResources);
+			return (lastModified != null) ? 
+					new CachedBeanDefinitions(beanDefinitions, aliases, allResources, lastModified, patternUrls) : null;
+		}
+
+		private static long[] getLastModified(List<Resource> resources) {
+			long[] lastModified = new long[resources.size()];
+			for (int i = 0; i < lastModified.length; i++) {
+				try {
+					lastModified[i] = resources.get(i).lastModified();
+				}
+				catch (IOException ex) {
+					return null;
+				}
+			}
+			return lastModified;
+		}
+
+		/**
+		 * Whether any of the resources was modified, or any of the location 
+		 * patterns resolves to different resources now.
+		 */
+		public boolean isStale(ResourcePatternResolver resolver) {
+			if (!Arrays.equals(this.lastModified, getLastModified(this.resources))) {
+				return true;
+			}
+			for (Map.Entry<String, List<String>> entry : this.patternUrls.entrySet()) {
+				try {
+					Resource[] resources = resolver.getResources(entry.getKey());
+					if (!entry.getValue().equals(getResourceUrls(Arrays.asList(resources)))) {
+						return true;
+					}
+				}
+				catch (IOException ex) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Register copies of the cached definitions and their aliases.
+		 */
+		public void registerWith(DefaultListableBeanFactory beanFactory) {
+			for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+				beanFactory.registerBeanDefinition(entry.getKey(), copyBeanDefinition(entry.getValue()));
+			}
+			for (Map.Entry<String, String[]> entry : this.aliases.entrySet()) {
+				for (String alias : entry.getValue()) {
+					beanFactory.registerAlias(entry.getKey(), alias);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Temporarily replaces singleton beans of a refreshed application context, 
+ * e.g. a service with a test double, without refreshing the context.
+ * 
+ * <p>The replacement is registered under the bean name and injected into 
+ * the fields of already created beans that depend on the original, such as
+ * controllers. {@link #restore()} puts the originals back. This allows many
+ * tests to share one refreshed (e.g. pooled) context while stubbing 
+ * different collaborators.
+ * 
+ * <p>Example:
+ * <pre>
+ * BeanOverrides overrides = new BeanOverrides().override("accountService", stubAccountService);
+ * MockMvc mockMvc = annotationConfigSetup(WebConfig.class).usePool().applyBeanOverrides(overrides).build();
+ * // ...
+ * overrides.restore();
+ * </pre>
+ * 
+ * <p>Only contexts created through {@link MockMvcBuilders#annotationConfigSetup(Class...)} 
+ * or {@link MockMvcBuilders#xmlConfigSetup(String...)} are supported. Dependencies 
+ * are rewired only where they were injected into fields, including final fields
+ * set through constructor injection, of the dependent bean or the target of 
+ * its AOP proxy. References held elsewhere, e.g. in collections, are not updated.
+ * 
+ * @see ContextMockMvcBuilderSupport#applyBeanOverrides(BeanOverrides)
+ */
+public class BeanOverrides {
+
+	private final Map<String, Object> replacements = new LinkedHashMap<String, Object>();
+
+	private final List<AppliedOverride> appliedOverrides = new ArrayList<AppliedOverride>();
+
+	private MockMvcBeanFactory beanFactory;
+
+	/**
+	 * Replace the singleton bean with the given name.
+	 */
+	public BeanOverrides override(String beanName, Object replacement) {
+		Assert.hasText(beanName, "Bean name is required");
+		Assert.notNull(replacement, "Replacement is required");
+		Assert.state(this.beanFactory == null, "Overrides already applied, call restore() first");
+		this.replacements.put(beanName, replacement);
+		return this;
+	}
+
+	/**
+	 * Whether the overrides are currently applied to an application context.
+	 */
+	public boolean isApplied() {
+		return (this.beanFactory != null);
+	}
+
+	/**
+	 * Apply the overrides to the given refreshed application context.
+	 * @throws IllegalStateException if already applied, if a bean is not an 
+	 * existing singleton, or if the context was not created by {@link MockMvcBuilders}
+	 */
+	public void apply(WebApplicationContext wac) {
+		Assert.state(this.beanFactory == null, "Overrides already applied, call restore() first");
+		this.beanFactory = getBeanFactory(wac);
+		try {
+			for (Map.Entry<String, Object> entry : this.replacements.entrySet()) {
+				applyOverride(entry.getKey(), entry.getValue());
+			}
+		}
+		catch (RuntimeException ex) {
+			restore();
+			throw ex;
+		}
+	}
+
+	private static MockMvcBeanFactory getBeanFactory(WebApplicationContext wac) {
+		Assert.state(wac instanceof ConfigurableApplicationContext, "Expected a ConfigurableApplicationContext");
+		ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) wac).getBeanFactory();
+		Assert.state(beanFactory instanceof MockMvcBeanFactory, 
+				"Bean overrides require a context created through MockMvcBuilders#annotationConfigSetup or #xmlConfigSetup");
+		return (MockMvcBeanFactory) beanFactory;
+	}
+
+	private void applyOverride(String beanName, Object replacement) {
+		Assert.state(this.beanFactory.containsSingleton(beanName), "No singleton instance named '" + beanName + "'");
+		Assert.state(!this.beanFactory.isFactoryBean(beanName), "Cannot override FactoryBean '" + beanName + "'");
+		Object original = this.beanFactory.replaceSingleton(beanName, replacement);
+		AppliedOverride override = new AppliedOverride(beanName, original);
+		this.appliedOverrides.add(override);
+		for (String dependentBeanName : this.beanFactory.getDependentBeans(beanName)) {
+			Object dependentBean = this.beanFactory.getSingleton(dependentBeanName);
+			if (dependentBean != null) {
+				rewireFields(getTarget(dependentBean), original, replacement, override);
+			}
+		}
+	}
+
+	private static Object getTarget(Object bean) {
+		if (bean instanceof Advised) {
+			TargetSource targetSource = ((Advised) bean).getTargetSource();
+			if (targetSource.isStatic()) {
+				try {
+					return targetSource.getTarget();
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException("Failed to obtain target of proxy " + bean, ex);
+				}
+			}
+		}
+		return bean;
+	}
+
+	private static void rewireFields(final Object target, final Object original, final Object replacement, 
+			final AppliedOverride override) {
+
+		ReflectionUtils.doWithFields(target.getClass(), new ReflectionUtils.FieldCallback() {
+			public void doWith(Field field) throws IllegalAccessException {
+				if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+					ReflectionUtils.makeAccessible(field);
+					if (field.get(target) == original) {
+						field.set(target, replacement);
+						override.addRewiredField(target, field);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Put the original beans back into the application context and into the 
+	 * fields of the beans that depend on them. Does nothing if not applied.
+	 */
+	public void restore() {
+		if (this.beanFactory == null) {
+			return;
+		}
+		for (int i = this.appliedOverrides.size() - 1; i >= 0; i--) {
+			this.appliedOverrides.get(i).restore(this.beanFactory);
+		}
+		this.appliedOverrides.clear();
+		this.beanFactory = null;
+	}
+
+
+	/**
+	 * An applied override and the fields it rewired.
+	 */
+	private static class AppliedOverride {
+
+		private final String beanName;
+
+		private final Object original;
+
+		private final List<Object> targets = new ArrayList<Object>();
+
+		private final List<Field> fields = new ArrayList<Field>();
+
+		public AppliedOverride(String beanName, Object original) {
+			this.beanName = beanName;
+			this.original = original;
+		}
+
+		public void addRewiredField(Object target, Field field) {
+			this.targets.add(target);
+			this.fields.add(field);
+		}
+
+		public void restore(MockMvcBeanFactory beanFactory) {
+			for (int i = 0; i < this.fields.size(); i++) {
+				ReflectionUtils.setField(this.fields.get(i), this.targets.get(i), this.original);
+			}
+			beanFactory.replaceSingleton(this.beanName, this.original);
+		}
+	}
+
+}
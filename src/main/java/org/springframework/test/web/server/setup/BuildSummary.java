@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.test.web.server.BuildReport;
+
+/**
+ * Aggregates the {@link BuildReport}s of all MockMvc builds in the JVM by
+ * builder key and prints a summary to {@code System.out} when the JVM exits.
+ *
+ * <p>The summary is off by default. Turn it on with {@link #enable()} or by
+ * setting the system property {@value #ENABLED_PROPERTY_NAME} to "true".
+ */
+public abstract class BuildSummary {
+
+	/**
+	 * System property that turns the summary on when set to "true".
+	 */
+	public static final String ENABLED_PROPERTY_NAME = "spring.test.mvc.buildSummary";
+
+	private static final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	private static boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY_NAME);
+
+	private static boolean shutdownHookRegistered;
+
+	/**
+	 * Turn the summary on.
+	 */
+	public static synchronized void enable() {
+		enabled = true;
+	}
+
+	public static synchronized boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turn the summary off. Reports recorded so far are kept.
+	 */
+	static synchronized void disable() {
+		enabled = false;
+	}
+
+	/**
+	 * Remove all reports recorded so far.
+	 */
+	static synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Add the given report to the summary if the summary is turned on.
+	 */
+	static synchronized void record(BuildReport report) {
+		if (!enabled) {
+			return;
+		}
+		if (!shutdownHookRegistered) {
+			Runtime.getRuntime().addShutdownHook(new Thread("MockMvc build summary") {
+				public void run() {
+					print(System.out);
+				}
+			});
+			shutdownHookRegistered = true;
+		}
+		Entry entry = entries.get(report.getBuilderKey());
+		if (entry == null) {
+			entry = new Entry(report.getBuilderKey());
+			entries.put(report.getBuilderKey(), entry);
+		}
+		entry.add(report);
+	}
+
+	/**
+	 * Print the summary, builder keys with the highest total build time first.
+	 */
+	public static synchronized void print(PrintStream out) {
+		List<Entry> sorted = new ArrayList<Entry>(entries.values());
+		Collections.sort(sorted, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				return (e1.totalTime < e2.totalTime) ? 1 : ((e1.totalTime > e2.totalTime) ? -1 : 0);
+			}
+		});
+		out.println("-----------------------------------------");
+		out.println("MockMvc build summary");
+		for (Entry entry : sorted) {
+			out.println();
+			out.println(entry.builderKey);
+			out.println("    builds = " + entry.count + ", total = " + BuildReport.formatMillis(entry.totalTime) +
+					" ms, average = " + BuildReport.formatMillis(entry.totalTime / entry.count) + " ms");
+			for (Map.Entry<String, Long> phase : entry.phaseTimes.entrySet()) {
+				out.println("    " + phase.getKey() + " = " + BuildReport.formatMillis(phase.getValue()) + " ms");
+			}
+		}
+		out.flush();
+	}
+
+
+	private static class Entry {
+
+		private final String builderKey;
+
+		private final Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
+
+		private int count;
+
+		private long totalTime;
+
+		public Entry(String builderKey) {
+			this.builderKey = builderKey;
+		}
+
+		public void add(BuildReport report) {
+			this.count++;
+			this.totalTime += report.getTotalTime();
+			for (Map.Entry<String, Long> phase : report.getPhaseTimes().entrySet()) {
+				Long previous = this.phaseTimes.get(phase.getKey());
+				this.phaseTimes.put(phase.getKey(), (previous != null) ? previous + phase.getValue() : phase.getValue());
+			}
+		}
+	}
+
+}
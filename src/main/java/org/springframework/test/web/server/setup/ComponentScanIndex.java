@@ -0,0 +1,221 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A persistent index of the class path resources found in jar files while 
+ * scanning for components, e.g. through {@code @ComponentScan} or 
+ * {@code <context:component-scan>}, in application contexts created by 
+ * {@link MockMvcBuilders#annotationConfigSetup(Class...)} and 
+ * {@link MockMvcBuilders#xmlConfigSetup(String...)}.
+ * 
+ * <p>Scanning a jar file requires reading all of its entries. With the index 
+ * enabled, the resources matched in a jar are recorded together with the jar's
+ * size and last-modified time, and later scans read them from the index as 
+ * long as the jar is unchanged. Stale entries are rescanned and replaced. 
+ * The index is loaded from its file on first use and written back when the 
+ * JVM exits.
+ * 
+ * <p>Note that only the listing of matching jar entries is indexed. Every 
+ * matched class is still read and filtered as a component candidate, since 
+ * no class metadata is recorded, and class path directories are always 
+ * scanned.
+ * 
+ * <p>The index is off by default. Turn it on with {@link #enable(File)} or 
+ * by setting the system property {@value #FILE_PROPERTY_NAME} to the index
+ * file location, e.g. "target/component-scan.index".
+ */
+public class ComponentScanIndex {
+
+	/**
+	 * System property with the location of the index file.
+	 */
+	public static final String FILE_PROPERTY_NAME = "spring.test.mvc.componentScanIndex";
+
+	private static final Log logger = LogFactory.getLog(ComponentScanIndex.class);
+
+	private static ComponentScanIndex sharedInstance;
+
+	private static boolean initialized;
+
+	private static boolean shutdownHookRegistered;
+
+	private final File file;
+
+	private final Properties entries = new Properties();
+
+	private boolean modified;
+
+	private ComponentScanIndex(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Turn the index on, reading and writing it from the given file.
+	 * An index enabled previously is written back to its file first.
+	 */
+	public static synchronized void enable(File file) {
+		Assert.notNull(file, "Index file is required");
+		if (sharedInstance != null) {
+			sharedInstance.save();
+		}
+		sharedInstance = new ComponentScanIndex(file);
+		sharedInstance.load();
+		initialized = true;
+		registerShutdownHook();
+	}
+
+	/**
+	 * Turn the index off, writing it back to its file first.
+	 */
+	static synchronized void disable() {
+		if (sharedInstance != null) {
+			sharedInstance.save();
+			sharedInstance = null;
+		}
+		initialized = true;
+	}
+
+	/**
+	 * Return the index, or {@code null} if not enabled.
+	 */
+	static synchronized ComponentScanIndex getSharedInstance() {
+		if (!initialized) {
+			String location = System.getProperty(FILE_PROPERTY_NAME);
+			if (StringUtils.hasText(location)) {
+				enable(new File(location));
+			}
+			initialized = true;
+		}
+		return sharedInstance;
+	}
+
+	private static void registerShutdownHook() {
+		if (shutdownHookRegistered) {
+			return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread("MockMvc component scan index") {
+			public void run() {
+				synchronized (ComponentScanIndex.class) {
+					if (sharedInstance != null) {
+						sharedInstance.save();
+					}
+				}
+			}
+		});
+		shutdownHookRegistered = true;
+	}
+
+	/**
+	 * Return the resource paths recorded for the given key, or {@code null} if 
+	 * there are none or they were recorded for a jar of a different size or 
+	 * last-modified time.
+	 */
+	synchronized List<String> getPaths(String key, long jarLength, long jarLastModified) {
+		String value = this.entries.getProperty(key);
+		if (value == null) {
+			return null;
+		}
+		String[] parts = StringUtils.delimitedListToStringArray(value, ",");
+		if (parts.length < 2 || !parts[0].equals(String.valueOf(jarLength)) || 
+				!parts[1].equals(String.valueOf(jarLastModified))) {
+			return null;
+		}
+		return new ArrayList<String>(Arrays.asList(parts).subList(2, parts.length));
+	}
+
+	/**
+	 * Record the resource paths found for the given key.
+	 */
+	synchronized void putPaths(String key, long jarLength, long jarLastModified, List<String> paths) {
+		StringBuilder sb = new StringBuilder().append(jarLength).append(",").append(jarLastModified);
+		for (String path : paths) {
+			sb.append(",").append(path);
+		}
+		this.entries.setProperty(key, sb.toString());
+		this.modified = true;
+	}
+
+	private synchronized void load() {
+		if (!this.file.isFile()) {
+			return;
+		}
+		InputStream in = null;
+		try {
+			in = new FileInputStream(this.file);
+			this.entries.load(in);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read component scan index " + this.file + ", scanning instead", ex);
+			this.entries.clear();
+		}
+		finally {
+			closeQuietly(in);
+		}
+	}
+
+	private synchronized void save() {
+		if (!this.modified) {
+			return;
+		}
+		OutputStream out = null;
+		try {
+			File parent = this.file.getAbsoluteFile().getParentFile();
+			if (parent != null) {
+				parent.mkdirs();
+			}
+			out = new FileOutputStream(this.file);
+			this.entries.store(out, "MockMvc component scan index");
+			this.modified = false;
+		}
+		catch (IOException ex) {
+			logger.warn("Could not write component scan index " + this.file, ex);
+		}
+		finally {
+			closeQuietly(out);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+}
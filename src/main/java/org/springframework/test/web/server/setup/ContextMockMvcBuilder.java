@@ -16,9 +16,16 @@
 
 package org.springframework.test.web.server.setup;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.Filter;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
 
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.FileSystemResourceLoader;
@@ -26,6 +33,10 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.mock.web.MockRequestDispatcher;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.test.web.server.MockMvc;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.RequestBuilder;
+import org.springframework.test.web.server.setup.WebApplicationContextPool.PooledContext;
+import org.springframework.util.Assert;
 import org.springframework.web.context.ConfigurableWebApplicationContext;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -37,6 +48,13 @@ import org.springframework.web.context.WebApplicationContext;
  * directory (classpath or file system relative), specific profiles can be activated, or 
  * {@link ApplicationContextInitializer}s applied.
  * 
+ * <p>Services, repositories, and other expensive infrastructure may be kept in 
+ * a shared, refreshed parent context, so that only a child context with the web
+ * layer is refreshed by each builder. See {@link #setParentContext(ApplicationContext)}.
+ * 
+ * <p>Refreshed contexts may also be shared through a {@link WebApplicationContextPool}
+ * by builders with the same configuration. See {@link #usePool()}.
+ * 
  * @author Rossen Stoyanchev
  */
 public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
@@ -47,6 +65,20 @@ public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 
 	private ResourceLoader webResourceLoader = new FileSystemResourceLoader();
 	
+	private boolean isClasspathRelative;
+
+	private Object[] configSources;
+
+	private String[] activeProfiles = new String[0];
+
+	private ApplicationContext parentContext;
+
+	private final List<ApplicationContextInitializer<?>> initializers = new ArrayList<ApplicationContextInitializer<?>>();
+
+	private WebApplicationContextPool contextPool;
+
+	private PooledContext pooledContext;
+
 	/**
      * Protected constructor. Not intended for direct instantiation.
      * @see MockMvcBuilders#annotationConfigSetup(Class...)
@@ -55,6 +87,15 @@ public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 	public ContextMockMvcBuilder(ConfigurableWebApplicationContext applicationContext) {
 		this.applicationContext = applicationContext;
 	}
+
+	/**
+	 * Record the configuration the application context was created with 
+	 * (e.g. {@code @Configuration} classes or XML config locations). 
+	 * Required for pooling contexts.
+	 */
+	void setConfigSources(Object... configSources) {
+		this.configSources = configSources;
+	}
 	
 	/**
 	 * Specify the location of the web application root directory. 
@@ -69,6 +110,7 @@ public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 	public ContextMockMvcBuilder configureWebAppRootDir(String warRootDir, boolean isClasspathRelative) {
 		this.webResourceBasePath = warRootDir;
 		this.webResourceLoader = isClasspathRelative ? new DefaultResourceLoader() : new FileSystemResourceLoader();
+		this.isClasspathRelative = isClasspathRelative;
 		return this;
 	}
 	
@@ -77,24 +119,151 @@ public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 	 */
 	public ContextMockMvcBuilder activateProfiles(String...profiles) {
 		this.applicationContext.getEnvironment().setActiveProfiles(profiles);
+		this.activeProfiles = profiles;
+		return this;
+	}
+	
+	/**
+	 * Set a refreshed parent for the application context. Typically the parent 
+	 * holds services, repositories, and data sources and is refreshed once and 
+	 * shared, while the application context itself holds only controllers and 
+	 * Spring MVC infrastructure and is quick to refresh.
+	 * <p>Spring MVC components are looked up in the parent as well. Pooled 
+	 * contexts are shared only by builders with the same parent instance, and 
+	 * the parent is not closed when a pooled context is evicted.
+	 */
+	public ContextMockMvcBuilder setParentContext(ApplicationContext parentContext) {
+		this.applicationContext.setParent(parentContext);
+		this.parentContext = parentContext;
 		return this;
 	}
 	
 	/**
 	 * Apply the given {@link ApplicationContextInitializer}s before the application context is "refreshed".
 	 */
-	@SuppressWarnings("unchecked")
 	public <T extends ConfigurableWebApplicationContext> 
 			ContextMockMvcBuilder applyInitializers(ApplicationContextInitializer<T>... initializers) {
 		
-		for (ApplicationContextInitializer<T> initializer : initializers) {
-			initializer.initialize((T) this.applicationContext);
-		}
+		this.initializers.addAll(Arrays.asList(initializers));
+		return this;
+	}
+
+	/**
+	 * Obtain the refreshed application context from the JVM-wide 
+	 * {@link WebApplicationContextPool}, or add it to the pool once refreshed.
+	 * Contexts are shared by builders with the same config classes or locations, 
+	 * active profiles, initializer classes, web application root directory, and
+	 * parent context.
+	 * <p>Note that pooled contexts and their singletons are shared across tests,
+	 * and that contexts evicted from the pool are closed even if MockMvc 
+	 * instances built from them are still in use.
+	 * @see WebApplicationContextPool#getSharedInstance()
+	 */
+	public ContextMockMvcBuilder usePool() {
+		return usePool(WebApplicationContextPool.getSharedInstance());
+	}
+
+	/**
+	 * Variant of {@link #usePool()} with the pool to use.
+	 */
+	public ContextMockMvcBuilder usePool(WebApplicationContextPool contextPool) {
+		Assert.state(this.configSources != null, 
+				"Pooling requires a builder created through MockMvcBuilders#annotationConfigSetup or #xmlConfigSetup");
+		this.contextPool = contextPool;
 		return this;
 	}
 	
+	@Override
+	public ContextMockMvcBuilder warmUp(int iterations, RequestBuilder... requests) {
+		super.warmUp(iterations, requests);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder cacheHandlers(int maxSize) {
+		super.cacheHandlers(maxSize);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setCacheHandlerAdapters(boolean cacheHandlerAdapters) {
+		super.setCacheHandlerAdapters(cacheHandlerAdapters);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder cacheViews(int maxSize) {
+		super.cacheViews(maxSize);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setCacheExceptionResolvers(boolean cacheExceptionResolvers) {
+		super.setCacheExceptionResolvers(cacheExceptionResolvers);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setSkipRendering(boolean skipRendering) {
+		super.setSkipRendering(skipRendering);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setTimeout(long timeout) {
+		super.setTimeout(timeout);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setBindRequestContext(boolean bindRequestContext) {
+		super.setBindRequestContext(bindRequestContext);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setUseFlashMaps(boolean useFlashMaps) {
+		super.setUseFlashMaps(useFlashMaps);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder setResolveLocale(boolean resolveLocale) {
+		super.setResolveLocale(resolveLocale);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder addFilters(Filter... filters) {
+		super.addFilters(filters);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder addFilter(Filter filter, String... urlPatterns) {
+		super.addFilter(filter, urlPatterns);
+		return this;
+	}
+
+	@Override
+	public ContextMockMvcBuilder applyBeanOverrides(BeanOverrides beanOverrides) {
+		super.applyBeanOverrides(beanOverrides);
+		return this;
+	}
+
+	@Override
+	protected String getBuilderKey() {
+		return (this.configSources != null) ? "context " + getContextKey() : super.getBuilderKey();
+	}
+
 	@Override
 	protected ServletContext initServletContext() {
+		if (this.contextPool != null) {
+			this.pooledContext = this.contextPool.get(getContextKey());
+			if (this.pooledContext != null) {
+				return this.pooledContext.getServletContext();
+			}
+		}
 		return new MockServletContext(this.webResourceBasePath, this.webResourceLoader) {
 			// Required for DefaultServletHttpRequestHandler...
 			public RequestDispatcher getNamedDispatcher(String path) {
@@ -105,9 +274,125 @@ public class ContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 
 	@Override
 	protected WebApplicationContext initWebApplicationContext(ServletContext servletContext) {
+		if (this.pooledContext != null) {
+			return this.pooledContext.getWebApplicationContext();
+		}
+		if (this.contextPool == null) {
+			return refreshApplicationContext(servletContext);
+		}
+		Object key = getContextKey();
+		ReentrantLock lock = this.contextPool.getCreationLock(key);
+		lock.lock();
+		try {
+			// Another builder may have pooled the context while we were waiting
+			this.pooledContext = this.contextPool.get(key);
+			if (this.pooledContext != null) {
+				return this.pooledContext.getWebApplicationContext();
+			}
+			refreshApplicationContext(servletContext);
+			PooledContext created = new PooledContext(servletContext, this.applicationContext, null);
+			if (this.contextPool.put(key, created)) {
+				this.pooledContext = created;
+				this.contextPool.removeCreationLock(key, lock);
+			}
+			return this.applicationContext;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private WebApplicationContext refreshApplicationContext(ServletContext servletContext) {
 		this.applicationContext.setServletContext(servletContext);
+		applyInitializers();
 		this.applicationContext.refresh();
 		return this.applicationContext;
 	}
 
+	@SuppressWarnings("unchecked")
+	private void applyInitializers() {
+		for (ApplicationContextInitializer<?> initializer : this.initializers) {
+			((ApplicationContextInitializer<ConfigurableWebApplicationContext>) initializer).initialize(this.applicationContext);
+		}
+	}
+
+	@Override
+	protected MvcSetup getCachedMvcSetup(WebApplicationContext wac) {
+		return (this.pooledContext != null) ? this.pooledContext.getMvcSetup() : null;
+	}
+
+	@Override
+	protected void mvcSetupInitialized(MvcSetup mvcSetup, ServletContext servletContext, WebApplicationContext wac) {
+		if (this.pooledContext != null) {
+			this.pooledContext.initMvcSetup(mvcSetup);
+		}
+	}
+
+	private Object getContextKey() {
+		List<Class<?>> initializerClasses = new ArrayList<Class<?>>();
+		for (ApplicationContextInitializer<?> initializer : this.initializers) {
+			initializerClasses.add(initializer.getClass());
+		}
+		return new ContextKey(this.applicationContext.getClass(), this.configSources, this.activeProfiles, 
+				initializerClasses, this.webResourceBasePath, this.isClasspathRelative, 
+				(this.parentContext != null) ? new ParentKey(this.parentContext) : null);
+	}
+
+
+	/**
+	 * Identifies a pooled context by its configuration.
+	 */
+	private static class ContextKey {
+
+		private final Object[] parts;
+
+		public ContextKey(Object... parts) {
+			this.parts = parts;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ContextKey && 
+					Arrays.deepEquals(this.parts, ((ContextKey) other).parts)));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.deepHashCode(this.parts);
+		}
+
+		@Override
+		public String toString() {
+			return Arrays.deepToString(this.parts);
+		}
+	}
+
+	/**
+	 * Identifies a parent context by instance rather than by equality.
+	 */
+	private static class ParentKey {
+
+		private final ApplicationContext parentContext;
+
+		public ParentKey(ApplicationContext parentContext) {
+			this.parentContext = parentContext;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ParentKey && 
+					this.parentContext == ((ParentKey) other).parentContext));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.parentContext);
+		}
+
+		@Override
+		public String toString() {
+			return "parent " + this.parentContext.getDisplayName();
+		}
+	}
+
 }
@@ -55,10 +55,28 @@ import org.springframework.web.servlet.view.InternalResourceViewResolver;
  */
 public abstract class ContextMockMvcBuilderSupport extends AbstractMockMvcBuilder {
 
+	private BeanOverrides beanOverrides;
 	
 	protected ContextMockMvcBuilderSupport() {
 	}
 
+	/**
+	 * Apply the given bean overrides to the WebApplicationContext once it is 
+	 * initialized. The overrides remain in effect until {@link BeanOverrides#restore()}
+	 * is invoked, typically after the test.
+	 */
+	public ContextMockMvcBuilderSupport applyBeanOverrides(BeanOverrides beanOverrides) {
+		this.beanOverrides = beanOverrides;
+		return this;
+	}
+
+	@Override
+	protected void webApplicationContextInitialized(WebApplicationContext wac) {
+		if (this.beanOverrides != null) {
+			this.beanOverrides.apply(wac);
+		}
+	}
+
 	@Override
 	protected List<HandlerMapping> initHandlerMappings(WebApplicationContext wac) {
 		List<HandlerMapping> result = getOrderedBeans(wac, HandlerMapping.class);
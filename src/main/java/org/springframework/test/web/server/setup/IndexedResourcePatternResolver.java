@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ResourceUtils;
+import org.springframework.web.context.support.ServletContextResourcePatternResolver;
+
+/**
+ * A {@link ServletContextResourcePatternResolver} that looks up the resources
+ * matched in jar files in the {@link ComponentScanIndex}, if enabled, rather 
+ * than reading the entries of each jar file. Class path directories and jar 
+ * files outside the file system are resolved as usual.
+ */
+class IndexedResourcePatternResolver extends ServletContextResourcePatternResolver {
+
+	public IndexedResourcePatternResolver(ResourceLoader resourceLoader) {
+		super(resourceLoader);
+	}
+
+	@Override
+	protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, String subPattern) 
+			throws IOException {
+
+		ComponentScanIndex index = ComponentScanIndex.getSharedInstance();
+		File jarFile = (index != null) ? getJarFile(rootDirResource.getURL()) : null;
+		if (jarFile == null) {
+			return super.doFindPathMatchingJarResources(rootDirResource, subPattern);
+		}
+
+		String rootUrl = rootDirResource.getURL().toString();
+		String key = rootUrl + "|" + subPattern;
+		long length = jarFile.length();
+		long lastModified = jarFile.lastModified();
+
+		List<String> paths = index.getPaths(key, length, lastModified);
+		if (paths != null) {
+			Set<Resource> result = new LinkedHashSet<Resource>(paths.size());
+			for (String path : paths) {
+				result.add(rootDirResource.createRelative(path));
+			}
+			return result;
+		}
+
+		Set<Resource> result = super.doFindPathMatchingJarResources(rootDirResource, subPattern);
+		paths = new ArrayList<String>(result.size());
+		for (Resource resource : result) {
+			String url = resource.getURL().toString();
+			if (!url.startsWith(rootUrl)) {
+				return result;
+			}
+			paths.add(url.substring(rootUrl.length()));
+		}
+		index.putPaths(key, length, lastModified, paths);
+		return result;
+	}
+
+	/**
+	 * Return the jar file in the file system the given URL points into, or 
+	 * {@code null} if the URL does not point into such a jar file.
+	 */
+	private static File getJarFile(URL url) {
+		if (!ResourceUtils.URL_PROTOCOL_JAR.equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			URL jarFileUrl = ResourceUtils.extractJarFileURL(url);
+			if (!ResourceUtils.isFileURL(jarFileUrl)) {
+				return null;
+			}
+			File file = ResourceUtils.getFile(jarFileUrl);
+			return file.isFile() ? file : null;
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+}
@@ -16,20 +16,49 @@
 
 package org.springframework.test.web.server.setup;
 
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.test.web.server.MockMvc;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.RequestBuilder;
 import org.springframework.util.Assert;
 import org.springframework.web.context.WebApplicationContext;
 
 /**
  * A {@link MockMvc} builder that expects a fully initialized {@link WebApplicationContext}
  * and looks up Spring MVC components in it.
- * 
+ *
+ * <p>The components looked up in a context are cached per context instance,
+ * so that building again over the same context does not rescan its bean
+ * definitions. Only a {@link ConfigurableApplicationContext} is cached. Its
+ * entry is removed when the context publishes a {@link ContextRefreshedEvent}
+ * or a {@link ContextClosedEvent}, or when the context is found to have a new
+ * bean factory, i.e. to have been refreshed again, so that the next build looks
+ * up components again. Contexts are weakly and the cached components softly
+ * referenced, so a context that is never closed can still be garbage collected.
+ *
  * @author Rossen Stoyanchev
  */
 public class InitializedContextMockMvcBuilder extends ContextMockMvcBuilderSupport {
 
+	private static final Map<WebApplicationContext, CacheEntry> mvcSetupCache =
+			new WeakHashMap<WebApplicationContext, CacheEntry>();
+
+	private static final ApplicationListener<ApplicationContextEvent> cacheInvalidationListener =
+			new CacheInvalidationListener();
+
 	private final WebApplicationContext applicationContext;
 	
 	/**
@@ -42,6 +71,89 @@ public class InitializedContextMockMvcBuilder extends ContextMockMvcBuilderSuppo
 		this.applicationContext = wac;
 	}
 
+	@Override
+	public InitializedContextMockMvcBuilder warmUp(int iterations, RequestBuilder... requests) {
+		super.warmUp(iterations, requests);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder cacheHandlers(int maxSize) {
+		super.cacheHandlers(maxSize);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setCacheHandlerAdapters(boolean cacheHandlerAdapters) {
+		super.setCacheHandlerAdapters(cacheHandlerAdapters);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder cacheViews(int maxSize) {
+		super.cacheViews(maxSize);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setCacheExceptionResolvers(boolean cacheExceptionResolvers) {
+		super.setCacheExceptionResolvers(cacheExceptionResolvers);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setSkipRendering(boolean skipRendering) {
+		super.setSkipRendering(skipRendering);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setTimeout(long timeout) {
+		super.setTimeout(timeout);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setBindRequestContext(boolean bindRequestContext) {
+		super.setBindRequestContext(bindRequestContext);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setUseFlashMaps(boolean useFlashMaps) {
+		super.setUseFlashMaps(useFlashMaps);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder setResolveLocale(boolean resolveLocale) {
+		super.setResolveLocale(resolveLocale);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder addFilters(Filter... filters) {
+		super.addFilters(filters);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder addFilter(Filter filter, String... urlPatterns) {
+		super.addFilter(filter, urlPatterns);
+		return this;
+	}
+
+	@Override
+	public InitializedContextMockMvcBuilder applyBeanOverrides(BeanOverrides beanOverrides) {
+		super.applyBeanOverrides(beanOverrides);
+		return this;
+	}
+
+	@Override
+	protected String getBuilderKey() {
+		return "context " + this.applicationContext.getDisplayName();
+	}
+
 	@Override
 	protected ServletContext initServletContext() {
 		return this.applicationContext.getServletContext();
@@ -52,4 +164,74 @@ public class InitializedContextMockMvcBuilder extends ContextMockMvcBuilderSuppo
 		return this.applicationContext;
 	}
 
+	@Override
+	protected MvcSetup getCachedMvcSetup(WebApplicationContext wac) {
+		synchronized (mvcSetupCache) {
+			CacheEntry entry = mvcSetupCache.get(wac);
+			if (entry == null) {
+				return null;
+			}
+			MvcSetup mvcSetup = entry.getMvcSetup(getBeanFactory(wac));
+			if (mvcSetup == null) {
+				mvcSetupCache.remove(wac);
+			}
+			return mvcSetup;
+		}
+	}
+
+	@Override
+	protected void mvcSetupInitialized(MvcSetup mvcSetup, ServletContext servletContext, WebApplicationContext wac) {
+		if (!(wac instanceof ConfigurableApplicationContext)) {
+			return;
+		}
+		synchronized (mvcSetupCache) {
+			// Add again after a refresh, which replaces the event multicaster
+			((ConfigurableApplicationContext) wac).addApplicationListener(cacheInvalidationListener);
+			mvcSetupCache.put(wac, new CacheEntry(getBeanFactory(wac), mvcSetup));
+		}
+	}
+
+	private static Object getBeanFactory(WebApplicationContext wac) {
+		return ((ConfigurableApplicationContext) wac).getBeanFactory();
+	}
+
+
+	/**
+	 * The MvcSetup of a context along with the bean factory of the context
+	 * at the time, which is replaced when a refreshable context is refreshed.
+	 */
+	private static class CacheEntry {
+
+		private final Reference<Object> beanFactory;
+
+		private final Reference<MvcSetup> mvcSetup;
+
+		public CacheEntry(Object beanFactory, MvcSetup mvcSetup) {
+			this.beanFactory = new WeakReference<Object>(beanFactory);
+			this.mvcSetup = new SoftReference<MvcSetup>(mvcSetup);
+		}
+
+		/**
+		 * Return the MvcSetup, or {@code null} if it was garbage collected or
+		 * if the context has a different bean factory now.
+		 */
+		public MvcSetup getMvcSetup(Object currentBeanFactory) {
+			return (this.beanFactory.get() == currentBeanFactory) ? this.mvcSetup.get() : null;
+		}
+	}
+
+	/**
+	 * Removes the cached MvcSetup of a context when it is refreshed or closed.
+	 */
+	private static class CacheInvalidationListener implements ApplicationListener<ApplicationContextEvent> {
+
+		public void onApplicationEvent(ApplicationContextEvent event) {
+			if (event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent) {
+				synchronized (mvcSetupCache) {
+					mvcSetupCache.remove(event.getApplicationContext());
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/**
+ * The {@link AnnotationConfigWebApplicationContext} created by 
+ * {@link MockMvcBuilders#annotationConfigSetup(Class...)}.
+ */
+class MockMvcAnnotationConfigWebApplicationContext extends AnnotationConfigWebApplicationContext {
+
+	@Override
+	protected DefaultListableBeanFactory createBeanFactory() {
+		return new MockMvcBeanFactory(getInternalParentBeanFactory());
+	}
+
+	/**
+	 * Use the {@link ComponentScanIndex} when scanning jar files, if enabled.
+	 */
+	@Override
+	protected ResourcePatternResolver getResourcePatternResolver() {
+		return new IndexedResourcePatternResolver(this);
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.Assert;
+
+/**
+ * The bean factory of application contexts created by {@link MockMvcBuilders}. 
+ * Allows replacing singleton instances of a refreshed context.
+ *
+ * @see BeanOverrides
+ */
+class MockMvcBeanFactory extends DefaultListableBeanFactory {
+
+	public MockMvcBeanFactory(BeanFactory parentBeanFactory) {
+		super(parentBeanFactory);
+	}
+
+	/**
+	 * Replace the singleton instance registered under the given name without 
+	 * invoking destruction callbacks on the previous instance.
+	 * @return the previous instance
+	 */
+	public Object replaceSingleton(String beanName, Object singletonObject) {
+		synchronized (getSingletonMutex()) {
+			Object previous = getSingleton(beanName, false);
+			Assert.state(previous != null, "No singleton instance named '" + beanName + "'");
+			removeSingleton(beanName);
+			addSingleton(beanName, singletonObject);
+			return previous;
+		}
+	}
+
+}
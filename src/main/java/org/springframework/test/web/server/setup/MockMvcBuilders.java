@@ -40,9 +40,11 @@ public class MockMvcBuilders {
 	 */
 	public static ContextMockMvcBuilder annotationConfigSetup(Class<?>... configClasses) {
 		Assert.notEmpty(configClasses, "At least one @Configuration class is required");
-		AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+		AnnotationConfigWebApplicationContext context = new MockMvcAnnotationConfigWebApplicationContext();
 		context.register(configClasses);
-		return new ContextMockMvcBuilder(context);
+		ContextMockMvcBuilder builder = new ContextMockMvcBuilder(context);
+		builder.setConfigSources((Object[]) configClasses);
+		return builder;
 	}
 
 	/**
@@ -56,16 +58,18 @@ public class MockMvcBuilders {
 	 */
 	public static ContextMockMvcBuilder xmlConfigSetup(String... configLocations) {
 		Assert.notEmpty(configLocations, "At least one XML config location is required");
-		XmlWebApplicationContext context = new XmlWebApplicationContext();
+		XmlWebApplicationContext context = new MockMvcXmlWebApplicationContext();
 		context.setConfigLocations(configLocations);
-		return new ContextMockMvcBuilder(context);
+		ContextMockMvcBuilder builder = new ContextMockMvcBuilder(context);
+		builder.setConfigSources((Object[]) configLocations);
+		return builder;
 	}
 
 	/**
 	 * Build a {@link MockMvc} from a fully initialized {@link WebApplicationContext}
 	 * The context must have been setup with a {@link ServletContext} and refreshed.
 	 */
-	public static MockMvcBuilder webApplicationContextSetup(WebApplicationContext context) {
+	public static InitializedContextMockMvcBuilder webApplicationContextSetup(WebApplicationContext context) {
 		return new InitializedContextMockMvcBuilder(context);
 	}
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.parsing.EmptyReaderEventListener;
+import org.springframework.beans.factory.parsing.ImportDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.test.web.server.setup.BeanDefinitionCache.CachedBeanDefinitions;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+
+/**
+ * The {@link XmlWebApplicationContext} created by 
+ * {@link MockMvcBuilders#xmlConfigSetup(String...)}.
+ * 
+ * <p>Bean definitions parsed from XML are kept in the {@link BeanDefinitionCache}
+ * and reused by contexts with the same configuration. Location patterns other 
+ * than the config locations resolved while parsing, e.g. by component scanning
+ * or wildcard imports, are recorded so that the cache can tell when classes are
+ * added, removed, or modified.
+ */
+class MockMvcXmlWebApplicationContext extends XmlWebApplicationContext {
+
+	private final List<Resource> importedResources = new ArrayList<Resource>();
+
+	private final Map<String, Resource[]> resolvedPatterns = new LinkedHashMap<String, Resource[]>();
+
+	private boolean recordPatterns;
+
+	@Override
+	protected DefaultListableBeanFactory createBeanFactory() {
+		return new MockMvcBeanFactory(getInternalParentBeanFactory());
+	}
+
+	@Override
+	protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
+		List<Resource> configResources = getConfigResources();
+		Object key = Arrays.asList(Arrays.asList(getConfigLocations()), 
+				BeanDefinitionCache.getResourceUrls(configResources), 
+				Arrays.asList(getEnvironment().getActiveProfiles()), Arrays.asList(getEnvironment().getDefaultProfiles()));
+
+		CachedBeanDefinitions definitions = BeanDefinitionCache.get(key, this);
+		if (definitions != null) {
+			definitions.registerWith(beanFactory);
+			return;
+		}
+
+		this.importedResources.clear();
+		this.resolvedPatterns.clear();
+		this.recordPatterns = true;
+		try {
+			super.loadBeanDefinitions(beanFactory);
+		}
+		finally {
+			this.recordPatterns = false;
+		}
+
+		List<Resource> resources = new ArrayList<Resource>(configResources);
+		resources.addAll(this.importedResources);
+		BeanDefinitionCache.put(key, beanFactory, resources, this.resolvedPatterns);
+	}
+
+	/**
+	 * Record the location patterns resolved while loading bean definitions.
+	 */
+	@Override
+	public Resource[] getResources(String locationPattern) throws IOException {
+		Resource[] resources = super.getResources(locationPattern);
+		if (this.recordPatterns && !ObjectUtils.containsElement(getConfigLocations(), locationPattern)) {
+			this.resolvedPatterns.put(locationPattern, resources);
+		}
+		return resources;
+	}
+
+	private List<Resource> getConfigResources() throws IOException {
+		List<Resource> resources = new ArrayList<Resource>();
+		String[] locations = getConfigLocations();
+		if (locations != null) {
+			for (String location : locations) {
+				resources.addAll(Arrays.asList(getResources(location)));
+			}
+		}
+		return resources;
+	}
+
+	/**
+	 * Record imported resources, which are part of the cached configuration.
+	 */
+	@Override
+	protected void initBeanDefinitionReader(XmlBeanDefinitionReader beanDefinitionReader) {
+		beanDefinitionReader.setEventListener(new EmptyReaderEventListener() {
+			@Override
+			public void importProcessed(ImportDefinition importDefinition) {
+				Resource[] resources = importDefinition.getActualResources();
+				if (resources != null) {
+					importedResources.addAll(Arrays.asList(resources));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Use the {@link ComponentScanIndex} when scanning jar files, if enabled.
+	 */
+	@Override
+	protected ResourcePatternResolver getResourcePatternResolver() {
+		return new IndexedResourcePatternResolver(this);
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * A trie of URL path patterns by path segment with an edge per literal 
+ * segment, a shared edge for segments with wildcards or URI template 
+ * variables, and an edge for "**" segments.
+ *
+ * <p>Patterns are added with an id. Looking up a path returns the ids of all 
+ * patterns that may match the path with an {@link org.springframework.util.AntPathMatcher}, 
+ * also when the last segment of the path has an extension the pattern does 
+ * not have. The result may include patterns that do not match, e.g. when 
+ * a segment such as "*.html" or "{id}-{name}" matches only some segments, 
+ * and must be checked further.
+ */
+class PathPatternTrie {
+
+	private static final String SEPARATOR = "/";
+
+	private final Node root = new Node();
+
+	/**
+	 * Add a pattern with the given id.
+	 */
+	public void add(String pattern, int id) {
+		Node node = this.root;
+		for (String segment : StringUtils.tokenizeToStringArray(pattern, SEPARATOR)) {
+			node = node.getOrCreateChild(segment);
+		}
+		node.addId(id);
+	}
+
+	/**
+	 * Add the ids of all patterns that may match the given path to the result.
+	 */
+	public void collect(String path, BitSet result) {
+		String[] segments = StringUtils.tokenizeToStringArray(path, SEPARATOR);
+		collect(this.root, segments, 0, path.endsWith(SEPARATOR), result);
+	}
+
+	private void collect(Node node, String[] segments, int index, boolean trailingSlash, BitSet result) {
+		if (node.multiSegmentChild != null) {
+			for (int i = index; i <= segments.length; i++) {
+				collect(node.multiSegmentChild, segments, i, trailingSlash, result);
+			}
+		}
+		if (index == segments.length) {
+			node.collectIds(result);
+			if (trailingSlash && node.wildcardChild != null) {
+				// "/path/*" matches "/path/"
+				node.wildcardChild.collectIds(result);
+			}
+			return;
+		}
+		String segment = segments[index];
+		boolean lastSegment = (index == segments.length - 1);
+		if (node.literalChildren != null) {
+			Node child = node.literalChildren.get(segment);
+			if (child != null) {
+				collect(child, segments, index + 1, trailingSlash, result);
+			}
+			if (lastSegment) {
+				// Suffix pattern match, i.e. "/path" matching "/path.json"
+				int dotIndex = segment.indexOf('.');
+				while (dotIndex != -1) {
+					child = node.literalChildren.get(segment.substring(0, dotIndex));
+					if (child != null) {
+						child.collectIds(result);
+					}
+					dotIndex = segment.indexOf('.', dotIndex + 1);
+				}
+			}
+		}
+		if (node.wildcardChild != null) {
+			collect(node.wildcardChild, segments, index + 1, trailingSlash, result);
+		}
+	}
+
+	private static boolean isLiteral(String segment) {
+		return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+	}
+
+
+	private static class Node {
+
+		private Map<String, Node> literalChildren;
+
+		private Node wildcardChild;
+
+		private Node multiSegmentChild;
+
+		private List<Integer> ids;
+
+		public Node getOrCreateChild(String segment) {
+			if (segment.equals("**")) {
+				if (this.multiSegmentChild == null) {
+					this.multiSegmentChild = new Node();
+				}
+				return this.multiSegmentChild;
+			}
+			if (!isLiteral(segment)) {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new Node();
+				}
+				return this.wildcardChild;
+			}
+			if (this.literalChildren == null) {
+				this.literalChildren = new HashMap<String, Node>();
+			}
+			Node child = this.literalChildren.get(segment);
+			if (child == null) {
+				child = new Node();
+				this.literalChildren.put(segment, child);
+			}
+			return child;
+		}
+
+		public void addId(int id) {
+			if (this.ids == null) {
+				this.ids = new ArrayList<Integer>(1);
+			}
+			this.ids.add(id);
+		}
+
+		public void collectIds(BitSet result) {
+			if (this.ids != null) {
+				for (int i = 0; i < this.ids.size(); i++) {
+					result.set(this.ids.get(i));
+				}
+			}
+		}
+	}
+
+}
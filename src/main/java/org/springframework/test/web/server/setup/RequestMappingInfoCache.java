@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.springframework.util.ReflectionUtils.MethodFilter;
+import org.springframework.web.method.HandlerMethodSelector;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * A JVM-wide cache of the {@link RequestMappingInfo}s detected on controller
+ * classes by {@link StaticRequestMappingHandlerMapping}.
+ *
+ * <p>Controller classes are weakly referenced. Since the cached {@link Method}s
+ * refer back to their class, mappings are held through soft references, which
+ * allows a class and its mappings to be garbage collected under memory pressure.
+ *
+ * <p>Mappings are detected with the default {@link StaticRequestMappingHandlerMapping}
+ * configuration, which is the only configuration used in standalone setups.
+ */
+abstract class RequestMappingInfoCache {
+
+	private static final Map<Class<?>, Reference<Map<Method, RequestMappingInfo>>> mappingsByType =
+			new WeakHashMap<Class<?>, Reference<Map<Method, RequestMappingInfo>>>();
+
+	/**
+	 * Return the request mappings of the given controller class, detecting
+	 * them with the given handler mapping if not cached yet.
+	 */
+	public static Map<Method, RequestMappingInfo> getMappings(Class<?> handlerType,
+			StaticRequestMappingHandlerMapping handlerMapping) {
+
+		Map<Method, RequestMappingInfo> mappings = null;
+		synchronized (mappingsByType) {
+			Reference<Map<Method, RequestMappingInfo>> reference = mappingsByType.get(handlerType);
+			if (reference != null) {
+				mappings = reference.get();
+			}
+		}
+		if (mappings == null) {
+			mappings = detectMappings(handlerType, handlerMapping);
+			synchronized (mappingsByType) {
+				mappingsByType.put(handlerType, new SoftReference<Map<Method, RequestMappingInfo>>(mappings));
+			}
+		}
+		return mappings;
+	}
+
+	private static Map<Method, RequestMappingInfo> detectMappings(final Class<?> handlerType,
+			final StaticRequestMappingHandlerMapping handlerMapping) {
+
+		Set<Method> methods = HandlerMethodSelector.selectMethods(handlerType, new MethodFilter() {
+			public boolean matches(Method method) {
+				return handlerMapping.getMappingForHandlerMethod(method, handlerType) != null;
+			}
+		});
+		Map<Method, RequestMappingInfo> mappings = new LinkedHashMap<Method, RequestMappingInfo>();
+		for (Method method : methods) {
+			mappings.put(method, handlerMapping.getMappingForHandlerMethod(method, handlerType));
+		}
+		return Collections.unmodifiableMap(mappings);
+	}
+
+	/**
+	 * Remove all cached mappings.
+	 */
+	public static void clear() {
+		synchronized (mappingsByType) {
+			mappingsByType.clear();
+		}
+	}
+
+}
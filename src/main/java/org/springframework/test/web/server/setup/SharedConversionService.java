@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
+
+/**
+ * Holds the read-only {@link DefaultFormattingConversionService} shared by
+ * {@link StandaloneMockMvcBuilder}s that do not customize conversion.
+ *
+ * <p>The shared instance is created on first use. Since it cannot be modified
+ * afterwards, the converter lookups it caches internally remain valid and
+ * are reused by all standalone setups in the JVM.
+ */
+abstract class SharedConversionService {
+
+	/**
+	 * Return the shared, read-only conversion service.
+	 */
+	public static FormattingConversionService getConversionService() {
+		return ConversionServiceHolder.conversionService;
+	}
+
+
+	/**
+	 * Creates the shared conversion service on first access.
+	 */
+	private static class ConversionServiceHolder {
+
+		private static final FormattingConversionService conversionService = new ReadOnlyConversionService();
+	}
+
+	/**
+	 * A {@link DefaultFormattingConversionService} that rejects the registration
+	 * or removal of converters once its default converters and formatters are added.
+	 */
+	private static class ReadOnlyConversionService extends DefaultFormattingConversionService {
+
+		private final boolean initialized;
+
+		public ReadOnlyConversionService() {
+			this.initialized = true;
+		}
+
+		@Override
+		public void addConverter(GenericConverter converter) {
+			assertModifiable();
+			super.addConverter(converter);
+		}
+
+		@Override
+		public void removeConvertible(Class<?> sourceType, Class<?> targetType) {
+			assertModifiable();
+			super.removeConvertible(sourceType, targetType);
+		}
+
+		private void assertModifiable() {
+			if (this.initialized) {
+				throw new UnsupportedOperationException("The shared conversion service is read-only. " +
+						"Use StandaloneMockMvcBuilder#setConversionService or #addFormatters instead.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.transform.Source;
+
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.feed.AtomFeedHttpMessageConverter;
+import org.springframework.http.converter.feed.RssChannelHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
+import org.springframework.http.converter.xml.SourceHttpMessageConverter;
+import org.springframework.http.converter.xml.XmlAwareFormHttpMessageConverter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Creates the default {@link HttpMessageConverter}s of standalone setups and
+ * holds a JVM-wide list of them shared by {@link StandaloneMockMvcBuilder}s.
+ *
+ * <p>Sharing converter instances also shares the caches they build up, such
+ * as the {@code JAXBContext} per class of {@link Jaxb2RootElementHttpMessageConverter}
+ * and the serializer caches of the Jackson {@code ObjectMapper} used by
+ * {@link MappingJacksonHttpMessageConverter}. The converters are thread-safe
+ * and the shared list is created lazily, on first use.
+ */
+abstract class SharedHttpMessageConverters {
+
+	/**
+	 * Return the shared, unmodifiable list of default converters.
+	 */
+	public static List<HttpMessageConverter<?>> getConverters() {
+		return ConvertersHolder.converters;
+	}
+
+	/**
+	 * Create a new list of default converters.
+	 */
+	public static List<HttpMessageConverter<?>> createDefaultConverters() {
+		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
+
+		StringHttpMessageConverter stringConverter = new StringHttpMessageConverter();
+		stringConverter.setWriteAcceptCharset(false);
+
+		messageConverters.add(new ByteArrayHttpMessageConverter());
+		messageConverters.add(stringConverter);
+		messageConverters.add(new ResourceHttpMessageConverter());
+		messageConverters.add(new SourceHttpMessageConverter<Source>());
+		messageConverters.add(new XmlAwareFormHttpMessageConverter());
+
+		ClassLoader classLoader = SharedHttpMessageConverters.class.getClassLoader();
+		if (ClassUtils.isPresent("javax.xml.bind.Binder", classLoader)) {
+			messageConverters.add(new Jaxb2RootElementHttpMessageConverter());
+		}
+		if (ClassUtils.isPresent("org.codehaus.jackson.map.ObjectMapper", classLoader)) {
+			messageConverters.add(new MappingJacksonHttpMessageConverter());
+		}
+		if (ClassUtils.isPresent("com.sun.syndication.feed.WireFeed", classLoader)) {
+			messageConverters.add(new AtomFeedHttpMessageConverter());
+			messageConverters.add(new RssChannelHttpMessageConverter());
+		}
+
+		return messageConverters;
+	}
+
+
+	/**
+	 * Creates the shared converters on first access.
+	 */
+	private static class ConvertersHolder {
+
+		private static final List<HttpMessageConverter<?>> converters =
+				Collections.unmodifiableList(createDefaultConverters());
+	}
+
+}
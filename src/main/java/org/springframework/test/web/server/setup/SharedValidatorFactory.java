@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.util.ClassUtils;
+import org.springframework.validation.Validator;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+
+/**
+ * Provides the JSR-303 {@link Validator} shared by {@link StandaloneMockMvcBuilder}s
+ * that are not configured with a validator of their own.
+ *
+ * <p>The default shared validator is a
+ * {@link org.springframework.validation.beanvalidation.LocalValidatorFactoryBean},
+ * bootstrapped on first use, assuming JSR-303 is on the classpath. This avoids
+ * paying for the bootstrap of the Bean Validation provider for every MockMvc.
+ *
+ * <p>Like the validator of a single standalone setup, the shared validator is 
+ * initialized by an otherwise empty application context, so ConstraintValidators
+ * are created through Spring's {@code SpringConstraintValidatorFactory}.
+ * A custom shared validator may be set instead through
+ * {@link StandaloneMockMvcBuilder#setSharedValidator(Validator)}.
+ */
+abstract class SharedValidatorFactory {
+
+	private static final String VALIDATOR_CLASS_NAME =
+			"org.springframework.validation.beanvalidation.LocalValidatorFactoryBean";
+
+	private static Validator sharedValidator;
+
+	private static boolean initialized;
+
+	/**
+	 * Return the shared validator, bootstrapping it if necessary.
+	 * @return the shared validator, or {@code null} if JSR-303 is not present
+	 */
+	public static synchronized Validator getValidator() {
+		if (!initialized) {
+			sharedValidator = createValidator();
+			if (sharedValidator != null) {
+				StaticApplicationContext context = new StaticApplicationContext();
+				context.refresh();
+				sharedValidator = (Validator) context.getAutowireCapableBeanFactory().initializeBean(sharedValidator, "mvcValidator");
+			}
+			initialized = true;
+		}
+		return sharedValidator;
+	}
+
+	/**
+	 * Set the validator to share instead of the default one, or {@code null}
+	 * to go back to the default, which is then bootstrapped on next use.
+	 * @see StandaloneMockMvcBuilder#setSharedValidator(Validator)
+	 */
+	public static synchronized void setValidator(Validator validator) {
+		sharedValidator = validator;
+		initialized = (validator != null);
+	}
+
+	/**
+	 * Create a new, not yet initialized instance of the default validator.
+	 * @return the validator, or {@code null} if JSR-303 is not present
+	 */
+	public static Validator createValidator() {
+		if (!ClassUtils.isPresent("javax.validation.Validator", SharedValidatorFactory.class.getClassLoader())) {
+			return null;
+		}
+		Class<?> clazz;
+		try {
+			clazz = ClassUtils.forName(VALIDATOR_CLASS_NAME, WebMvcConfigurationSupport.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new BeanInitializationException("Could not find default validator");
+		} catch (LinkageError e) {
+			throw new BeanInitializationException("Could not find default validator");
+		}
+		return (Validator) BeanUtils.instantiate(clazz);
+	}
+
+}
@@ -22,26 +22,18 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
-import javax.xml.transform.Source;
 
-import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.Formatter;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
-import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.ResourceHttpMessageConverter;
-import org.springframework.http.converter.StringHttpMessageConverter;
-import org.springframework.http.converter.feed.AtomFeedHttpMessageConverter;
-import org.springframework.http.converter.feed.RssChannelHttpMessageConverter;
-import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
-import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
-import org.springframework.http.converter.xml.SourceHttpMessageConverter;
-import org.springframework.http.converter.xml.XmlAwareFormHttpMessageConverter;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.test.web.server.MockMvc;
 import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.RequestBuilder;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
@@ -63,13 +55,11 @@ import org.springframework.web.servlet.RequestToViewNameTranslator;
 import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
 import org.springframework.web.servlet.handler.MappedInterceptor;
 import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
 import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
 import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.servlet.mvc.support.DefaultHandlerExceptionResolver;
 import org.springframework.web.servlet.support.DefaultFlashMapManager;
 import org.springframework.web.servlet.view.BeanNameViewResolver;
@@ -93,11 +83,19 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 
 	private final Object[] controllers;
 	
-	private List<HttpMessageConverter<?>> messageConverters = getDefaultHttpMessageConverters();
+	private List<HttpMessageConverter<?>> messageConverters;
+	
+	private boolean useSharedMessageConverters = true;
 	
 	private Validator validator;
 	
-	private FormattingConversionService conversionService = new DefaultFormattingConversionService();
+	private boolean useSharedValidator = true;
+	
+	private FormattingConversionService conversionService;
+	
+	private final List<Formatter<?>> formatters = new ArrayList<Formatter<?>>();
+
+	private final List<Converter<?, ?>> converters = new ArrayList<Converter<?, ?>>();
 	
 	private final List<MappedInterceptor> mappedInterceptors = new ArrayList<MappedInterceptor>();
 
@@ -113,6 +111,8 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 	
 	private FlashMapManager flashMapManager = new DefaultFlashMapManager();
 
+	private boolean indexRequestMappings;
+
 	/**
 	 * Protected constructor. Not intended for direct instantiation.
 	 * @see MockMvcBuilders#standaloneSetup(Object...)
@@ -133,24 +133,85 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 		return this;
 	}
 
+	/**
+	 * Whether to use default message converters shared by all standalone setups 
+	 * in the JVM, which avoids re-creating converters along with their JAXB and 
+	 * Jackson caches for every MockMvc. Set this to "false" for tests that modify 
+	 * the configuration of default message converters.
+	 * <p>The default is "true". Not relevant if message converters are set explicitly.
+	 */
+	public StandaloneMockMvcBuilder setUseSharedMessageConverters(boolean useSharedMessageConverters) {
+		this.useSharedMessageConverters = useSharedMessageConverters;
+		return this;
+	}
+
 	/**
 	 * Provide a custom {@link Validator} instead of the one created by default.
 	 * The default implementation used, assuming JSR-303 is on the classpath, is
 	 * {@link org.springframework.validation.beanvalidation.LocalValidatorFactoryBean}.
+	 * @see #setUseSharedValidator(boolean)
 	 */
 	public StandaloneMockMvcBuilder setValidator(Validator validator) {
 		this.validator = validator;
 		return this;
 	}
 
+	/**
+	 * Whether to use the default validator shared by all standalone setups in 
+	 * the JVM, which is bootstrapped only once, or to create and initialize a 
+	 * new one for this setup. 
+	 * <p>The default is "true". Not relevant if a validator is set explicitly.
+	 */
+	public StandaloneMockMvcBuilder setUseSharedValidator(boolean useSharedValidator) {
+		this.useSharedValidator = useSharedValidator;
+		return this;
+	}
+
+	/**
+	 * Set the validator shared by all standalone setups in the JVM that use the
+	 * shared validator, replacing the default {@code LocalValidatorFactoryBean}.
+	 * The validator is used as is and must be fully initialized. The setting 
+	 * applies to all later builds in the JVM, not just to this builder, so it
+	 * is typically made once, e.g. in a base test class.
+	 * @param validator the validator to share, or {@code null} to go back to 
+	 * the default one, which is then bootstrapped on next use
+	 * @see #setUseSharedValidator(boolean)
+	 */
+	public static void setSharedValidator(Validator validator) {
+		SharedValidatorFactory.setValidator(validator);
+	}
+
 	/**
 	 * Provide a conversion service with custom formatters and converters.
-	 * If not set, a {@link DefaultFormattingConversionService} is used by default.
+	 * If not set, a read-only {@link DefaultFormattingConversionService} shared 
+	 * by all standalone setups is used by default.
 	 */
 	public StandaloneMockMvcBuilder setConversionService(FormattingConversionService conversionService) {
 		this.conversionService = conversionService;
 		return this;
 	}
+
+	/**
+	 * Add formatters to a new {@link DefaultFormattingConversionService} used 
+	 * instead of the shared one. Not supported in combination with 
+	 * {@link #setConversionService}; register formatters with the given 
+	 * conversion service instead.
+	 */
+	public StandaloneMockMvcBuilder addFormatters(Formatter<?>... formatters) {
+		this.formatters.addAll(Arrays.asList(formatters));
+		return this;
+	}
+
+	/**
+	 * Add converters to a new {@link DefaultFormattingConversionService} used 
+	 * instead of the shared one. Not supported in combination with 
+	 * {@link #setConversionService}; register converters with the given 
+	 * conversion service instead.
+	 */
+	public StandaloneMockMvcBuilder addConverters(Converter<?, ?>... converters) {
+		this.converters.addAll(Arrays.asList(converters));
+		return this;
+	}
 	
 	/**
 	 * Add interceptors mapped to all incoming requests.
@@ -232,6 +293,99 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 		return this;
 	}
 
+	/**
+	 * Whether to index request mappings by URL path segment so that a lookup 
+	 * checks only the mappings that may match the request path instead of all 
+	 * of them. The selected handler is the same. Worth turning on for setups 
+	 * with hundreds of request mappings or more.
+	 * <p>The default is "false".
+	 */
+	public StandaloneMockMvcBuilder setIndexRequestMappings(boolean indexRequestMappings) {
+		this.indexRequestMappings = indexRequestMappings;
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder warmUp(int iterations, RequestBuilder... requests) {
+		super.warmUp(iterations, requests);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder cacheHandlers(int maxSize) {
+		super.cacheHandlers(maxSize);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setCacheHandlerAdapters(boolean cacheHandlerAdapters) {
+		super.setCacheHandlerAdapters(cacheHandlerAdapters);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder cacheViews(int maxSize) {
+		super.cacheViews(maxSize);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setCacheExceptionResolvers(boolean cacheExceptionResolvers) {
+		super.setCacheExceptionResolvers(cacheExceptionResolvers);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setSkipRendering(boolean skipRendering) {
+		super.setSkipRendering(skipRendering);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setTimeout(long timeout) {
+		super.setTimeout(timeout);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setBindRequestContext(boolean bindRequestContext) {
+		super.setBindRequestContext(bindRequestContext);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setUseFlashMaps(boolean useFlashMaps) {
+		super.setUseFlashMaps(useFlashMaps);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder setResolveLocale(boolean resolveLocale) {
+		super.setResolveLocale(resolveLocale);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder addFilters(Filter... filters) {
+		super.addFilters(filters);
+		return this;
+	}
+
+	@Override
+	public StandaloneMockMvcBuilder addFilter(Filter filter, String... urlPatterns) {
+		super.addFilter(filter, urlPatterns);
+		return this;
+	}
+
+	@Override
+	protected String getBuilderKey() {
+		StringBuilder sb = new StringBuilder("standalone");
+		for (Object controller : this.controllers) {
+			sb.append(" ").append(ClassUtils.getUserClass(controller).getName());
+		}
+		return sb.toString();
+	}
+
 	@Override
 	protected ServletContext initServletContext() {
 		return new MockServletContext();
@@ -247,7 +401,8 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 
 	@Override
 	protected List<HandlerMapping> initHandlerMappings(WebApplicationContext wac) {
-		StaticRequestMappingHandlerMapping handlerMapping = new StaticRequestMappingHandlerMapping();
+		StaticRequestMappingHandlerMapping handlerMapping = this.indexRequestMappings ? 
+				new TrieRequestMappingHandlerMapping() : new StaticRequestMappingHandlerMapping();
 		handlerMapping.registerHandlers(this.controllers);
 		handlerMapping.setInterceptors(this.mappedInterceptors.toArray());
 		handlerMapping.setOrder(0);
@@ -257,12 +412,12 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 	@Override
 	protected List<HandlerAdapter> initHandlerAdapters(WebApplicationContext wac) {
 		ConfigurableWebBindingInitializer initializer = new ConfigurableWebBindingInitializer();
-		initializer.setConversionService(this.conversionService);
+		initializer.setConversionService(initConversionService());
 		initializer.setValidator(initValidator());
 
 		RequestMappingHandlerAdapter handlerAdapter = new RequestMappingHandlerAdapter();
 		handlerAdapter.setWebBindingInitializer(initializer);
-		handlerAdapter.setMessageConverters(this.messageConverters);
+		handlerAdapter.setMessageConverters(initMessageConverters());
 		handlerAdapter.setCustomArgumentResolvers(this.customArgumentResolvers);
 		handlerAdapter.setCustomReturnValueHandlers(this.customReturnValueHandlers);
 		handlerAdapter.setApplicationContext(wac);	// for SpEL expressions in annotations
@@ -271,61 +426,44 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 		return Collections.<HandlerAdapter>singletonList(handlerAdapter);
 	}
 
+	private FormattingConversionService initConversionService() {
+		if (this.formatters.isEmpty() && this.converters.isEmpty()) {
+			return (this.conversionService != null) ? this.conversionService : SharedConversionService.getConversionService();
+		}
+		Assert.state(this.conversionService == null, "Formatters and converters cannot be added to a conversion " + 
+				"service set through setConversionService. Register them with the conversion service instead.");
+		FormattingConversionService result = new DefaultFormattingConversionService();
+		for (Formatter<?> formatter : this.formatters) {
+			result.addFormatter(formatter);
+		}
+		for (Converter<?, ?> converter : this.converters) {
+			result.addConverter(converter);
+		}
+		return result;
+	}
+
 	protected Validator initValidator() {
 		if (this.validator == null) {
-			if (ClassUtils.isPresent("javax.validation.Validator", getClass().getClassLoader())) {
-				Class<?> clazz;
-				try {
-					String className = "org.springframework.validation.beanvalidation.LocalValidatorFactoryBean";
-					clazz = ClassUtils.forName(className, WebMvcConfigurationSupport.class.getClassLoader());
-				} catch (ClassNotFoundException e) {
-					throw new BeanInitializationException("Could not find default validator");
-				} catch (LinkageError e) {
-					throw new BeanInitializationException("Could not find default validator");
-				}
-				validator = (Validator) BeanUtils.instantiate(clazz);
+			if (this.useSharedValidator) {
+				return SharedValidatorFactory.getValidator();
 			}
+			this.validator = SharedValidatorFactory.createValidator();
 		}
-		return validator;
+		return this.validator;
 	}
 	
-	/**
-	 * Override this method to add default {@link HttpMessageConverter}s. 
-	 * @param messageConverters the list to add the default message converters to
-	 */
-	private List<HttpMessageConverter<?>> getDefaultHttpMessageConverters() {
-		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
-		
-		StringHttpMessageConverter stringConverter = new StringHttpMessageConverter();
-		stringConverter.setWriteAcceptCharset(false);
-
-		messageConverters.add(new ByteArrayHttpMessageConverter());
-		messageConverters.add(stringConverter);
-		messageConverters.add(new ResourceHttpMessageConverter());
-		messageConverters.add(new SourceHttpMessageConverter<Source>());
-		messageConverters.add(new XmlAwareFormHttpMessageConverter());
-
-		ClassLoader classLoader = getClass().getClassLoader();
-		if (ClassUtils.isPresent("javax.xml.bind.Binder", classLoader)) {
-			messageConverters.add(new Jaxb2RootElementHttpMessageConverter());
-		}
-		if (ClassUtils.isPresent("org.codehaus.jackson.map.ObjectMapper", classLoader)) {
-			messageConverters.add(new MappingJacksonHttpMessageConverter());
+	private List<HttpMessageConverter<?>> initMessageConverters() {
+		if (this.messageConverters == null) {
+			this.messageConverters = this.useSharedMessageConverters ? 
+					SharedHttpMessageConverters.getConverters() : SharedHttpMessageConverters.createDefaultConverters();
 		}
-		if (ClassUtils.isPresent("com.sun.syndication.feed.WireFeed", classLoader)) {
-			messageConverters.add(new AtomFeedHttpMessageConverter());
-			messageConverters.add(new RssChannelHttpMessageConverter());
-		}
-		
-		return messageConverters;
+		return this.messageConverters;
 	}
 	
 	@Override
 	protected List<HandlerExceptionResolver> initHandlerExceptionResolvers(WebApplicationContext wac) {
 		ExceptionHandlerExceptionResolver exceptionResolver = new ExceptionHandlerExceptionResolver();
-		if (this.messageConverters != null) {
-			exceptionResolver.setMessageConverters(this.messageConverters);
-		}
+		exceptionResolver.setMessageConverters(initMessageConverters());
 		exceptionResolver.afterPropertiesSet();
 		
 		List<HandlerExceptionResolver> resolvers = new ArrayList<HandlerExceptionResolver>();
@@ -361,7 +499,9 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 	@Override
 	protected void mvcSetupInitialized(MvcSetup mvcSetup, ServletContext servletContext, WebApplicationContext wac) {	
 		
-		wac.getAutowireCapableBeanFactory().initializeBean(this.validator, "mvcValidator");
+		if (this.validator != null) {
+			wac.getAutowireCapableBeanFactory().initializeBean(this.validator, "mvcValidator");
+		}
 		
 		for (Object viewResolver : this.viewResolvers) {
 			if (viewResolver instanceof WebApplicationObjectSupport) {
@@ -370,19 +510,6 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder {
 		}
 	}
 	
-	/**
-	 * A {@link RequestMappingHandlerMapping} allowing direct registration of controller 
-	 * instances rather than scanning a WebApplicationContext.
-	 */
-	private static class StaticRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
-		
-		public void registerHandlers(Object...handlers) {
-			for (Object handler : handlers) {
-				super.detectHandlerMethods(handler);
-			}
-		}
-	}
-
 	/**
 	 * A {@link ViewResolver} that always returns same View.
 	 */
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.springframework.test.web.server.CacheableHandlerMapping;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * A {@link RequestMappingHandlerMapping} allowing direct registration of controller
+ * instances rather than scanning a WebApplicationContext.
+ *
+ * <p>The request mappings detected for a controller class are kept in a
+ * {@link RequestMappingInfoCache} shared by all instances, so that each
+ * controller class is introspected only once.
+ *
+ * <p>Declares itself cacheable unless any of its mappings has params, headers,
+ * or custom conditions, which depend on request features other than those
+ * {@link CacheableHandlerMapping}s are cached by.
+ *
+ * @author Rossen Stoyanchev
+ */
+class StaticRequestMappingHandlerMapping extends RequestMappingHandlerMapping implements CacheableHandlerMapping {
+
+	private volatile Boolean cacheable;
+
+	public void registerHandlers(Object...handlers) {
+		for (Object handler : handlers) {
+			Class<?> handlerType = ClassUtils.getUserClass(handler.getClass());
+			Map<Method, RequestMappingInfo> mappings = RequestMappingInfoCache.getMappings(handlerType, this);
+			for (Map.Entry<Method, RequestMappingInfo> entry : mappings.entrySet()) {
+				registerHandlerMethod(handler, entry.getKey(), entry.getValue());
+			}
+		}
+		this.cacheable = null;
+	}
+
+	public boolean isCacheable() {
+		Boolean cacheable = this.cacheable;
+		if (cacheable == null) {
+			cacheable = Boolean.TRUE;
+			for (RequestMappingInfo info : getHandlerMethods().keySet()) {
+				if (!info.getParamsCondition().isEmpty() || !info.getHeadersCondition().isEmpty() || 
+						info.getCustomCondition() != null) {
+					cacheable = Boolean.FALSE;
+					break;
+				}
+			}
+			this.cacheable = cacheable;
+		}
+		return cacheable;
+	}
+
+	/**
+	 * Expose the mapping for the given method to {@link RequestMappingInfoCache}.
+	 */
+	RequestMappingInfo getMappingForHandlerMethod(Method method, Class<?> handlerType) {
+		return getMappingForMethod(method, handlerType);
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * A {@link StaticRequestMappingHandlerMapping} that indexes the URL patterns 
+ * of its mappings in a {@link PathPatternTrie}, so that a lookup checks only 
+ * the mappings whose patterns may match the lookup path rather than all of 
+ * them. Useful for standalone setups with many controllers.
+ *
+ * <p>Otherwise a lookup proceeds as in the super class: mappings with a 
+ * pattern equal to the lookup path are tried first, matching mappings are 
+ * sorted with {@link #getMappingComparator}, and ambiguous matches are 
+ * rejected. If there is no match, {@link #handleNoMatch} is called with all 
+ * mappings. Falls back on the lookup of the super class if a PathMatcher 
+ * other than {@link AntPathMatcher} is configured.
+ */
+class TrieRequestMappingHandlerMapping extends StaticRequestMappingHandlerMapping {
+
+	private final List<RequestMappingInfo> mappings = new ArrayList<RequestMappingInfo>();
+
+	private final List<HandlerMethod> handlerMethods = new ArrayList<HandlerMethod>();
+
+	private final Map<String, List<Integer>> directPathMappings = new HashMap<String, List<Integer>>();
+
+	private final List<Integer> patternlessMappings = new ArrayList<Integer>();
+
+	private final PathPatternTrie trie = new PathPatternTrie();
+
+	@Override
+	protected void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+		super.registerHandlerMethod(handler, method, mapping);
+		int id = this.mappings.size();
+		this.mappings.add(mapping);
+		this.handlerMethods.add(getHandlerMethods().get(mapping));
+		Set<String> patterns = mapping.getPatternsCondition().getPatterns();
+		if (patterns.isEmpty()) {
+			this.patternlessMappings.add(id);
+		}
+		for (String pattern : patterns) {
+			this.trie.add(pattern, id);
+			if (!getPathMatcher().isPattern(pattern)) {
+				List<Integer> ids = this.directPathMappings.get(pattern);
+				if (ids == null) {
+					ids = new ArrayList<Integer>(1);
+					this.directPathMappings.put(pattern, ids);
+				}
+				ids.add(id);
+			}
+		}
+	}
+
+	@Override
+	protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+		if (!getPathMatcher().getClass().equals(AntPathMatcher.class)) {
+			return super.lookupHandlerMethod(lookupPath, request);
+		}
+
+		List<Match> matches = new ArrayList<Match>();
+		List<Integer> directPathMatches = this.directPathMappings.get(lookupPath);
+		if (directPathMatches != null) {
+			for (Integer id : directPathMatches) {
+				addMatchingMapping(id, matches, request);
+			}
+		}
+		if (matches.isEmpty()) {
+			BitSet candidates = new BitSet(this.mappings.size());
+			this.trie.collect(lookupPath, candidates);
+			for (Integer id : this.patternlessMappings) {
+				candidates.set(id);
+			}
+			for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+				addMatchingMapping(id, matches, request);
+			}
+		}
+
+		if (matches.isEmpty()) {
+			return handleNoMatch(getHandlerMethods().keySet(), lookupPath, request);
+		}
+
+		Comparator<Match> comparator = new MatchComparator(getMappingComparator(lookupPath, request));
+		Collections.sort(matches, comparator);
+		Match bestMatch = matches.get(0);
+		if (matches.size() > 1) {
+			Match secondBestMatch = matches.get(1);
+			if (comparator.compare(bestMatch, secondBestMatch) == 0) {
+				Method m1 = bestMatch.handlerMethod.getMethod();
+				Method m2 = secondBestMatch.handlerMethod.getMethod();
+				throw new IllegalStateException("Ambiguous handler methods mapped for HTTP path '" + 
+						request.getRequestURL() + "': {" + m1 + ", " + m2 + "}");
+			}
+		}
+		handleMatch(bestMatch.mapping, lookupPath, request);
+		return bestMatch.handlerMethod;
+	}
+
+	private void addMatchingMapping(int id, List<Match> matches, HttpServletRequest request) {
+		RequestMappingInfo match = getMatchingMapping(this.mappings.get(id), request);
+		if (match != null) {
+			matches.add(new Match(match, this.handlerMethods.get(id)));
+		}
+	}
+
+
+	private static class Match {
+
+		private final RequestMappingInfo mapping;
+
+		private final HandlerMethod handlerMethod;
+
+		public Match(RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+			this.mapping = mapping;
+			this.handlerMethod = handlerMethod;
+		}
+	}
+
+	private static class MatchComparator implements Comparator<Match> {
+
+		private final Comparator<RequestMappingInfo> comparator;
+
+		public MatchComparator(Comparator<RequestMappingInfo> comparator) {
+			this.comparator = comparator;
+		}
+
+		public int compare(Match match1, Match match2) {
+			return this.comparator.compare(match1.mapping, match2.mapping);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.RequestBuilder;
+import org.springframework.test.web.server.request.MockMvcRequestBuilders;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.AbstractHandlerMethodMapping;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Derives warm-up requests from the {@link RequestMappingInfo}s registered
+ * in the handler mappings of an {@link MvcSetup}.
+ *
+ * <p>URI variables are replaced with "1" and wildcards with "x". Mappings
+ * without request method conditions are requested with GET.
+ *
+ * @see AbstractMockMvcBuilder#warmUp(int, RequestBuilder...)
+ */
+abstract class WarmUpRequests {
+
+	private static final Pattern URI_VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?\\}");
+
+	private static final Pattern WILDCARD_PATTERN = Pattern.compile("\\*+");
+
+	public static List<RequestBuilder> deriveRequests(MvcSetup mvcSetup) {
+		List<RequestBuilder> requests = new ArrayList<RequestBuilder>();
+		for (HandlerMapping handlerMapping : mvcSetup.getHandlerMappings()) {
+			if (handlerMapping instanceof AbstractHandlerMethodMapping) {
+				for (Object mapping : ((AbstractHandlerMethodMapping<?>) handlerMapping).getHandlerMethods().keySet()) {
+					if (mapping instanceof RequestMappingInfo) {
+						addRequests((RequestMappingInfo) mapping, requests);
+					}
+				}
+			}
+		}
+		return requests;
+	}
+
+	private static void addRequests(RequestMappingInfo mapping, List<RequestBuilder> requests) {
+		Set<String> patterns = mapping.getPatternsCondition().getPatterns();
+		Set<RequestMethod> methods = mapping.getMethodsCondition().getMethods();
+		for (String pattern : patterns.isEmpty() ? Collections.singleton("/") : patterns) {
+			String url = toUrl(pattern);
+			if (methods.isEmpty()) {
+				requests.add(MockMvcRequestBuilders.get(url));
+			}
+			for (RequestMethod method : methods) {
+				requests.add(MockMvcRequestBuilders.request(HttpMethod.valueOf(method.name()), url));
+			}
+		}
+	}
+
+	private static String toUrl(String pattern) {
+		String url = URI_VARIABLE_PATTERN.matcher(pattern).replaceAll("1");
+		url = WILDCARD_PATTERN.matcher(url).replaceAll("x");
+		return url.startsWith("/") ? url : "/" + url;
+	}
+
+}
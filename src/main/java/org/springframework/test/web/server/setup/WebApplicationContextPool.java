@@ -0,0 +1,274 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * A pool of refreshed {@link WebApplicationContext}s, along with the ServletContext
+ * they were initialized with and the {@link MvcSetup} resolved from them, shared
+ * by {@link ContextMockMvcBuilder}s with the same context configuration.
+ *
+ * <p>Entries are evicted in least-recently-used order when the pool exceeds its
+ * maximum size or, optionally, when the ratio of used to maximum JVM heap exceeds
+ * a threshold. Evicted contexts are closed, even if {@link org.springframework.test.web.server.MockMvc}
+ * instances built from them are still referenced. Such instances must not be 
+ * used after eviction, so the pool should be sized to hold all contexts in use
+ * at the same time, e.g. by a test class. 
+ *
+ * @see ContextMockMvcBuilder#usePool()
+ */
+public class WebApplicationContextPool {
+
+	private static final Log logger = LogFactory.getLog(WebApplicationContextPool.class);
+
+	private static final WebApplicationContextPool sharedInstance = new WebApplicationContextPool();
+
+	private final Map<Object, PooledContext> contexts = new LinkedHashMap<Object, PooledContext>(16, 0.75f, true);
+
+	private final ConcurrentMap<Object, ReentrantLock> creationLocks = new ConcurrentHashMap<Object, ReentrantLock>();
+
+	private int maxSize = 32;
+
+	private float maxHeapRatio = 1.0f;
+
+	/**
+	 * Return the JVM-wide pool instance.
+	 */
+	public static WebApplicationContextPool getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * Set the maximum number of contexts to keep.
+	 * <p>The default is 32.
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+		evictIfNecessary();
+	}
+
+	public synchronized int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Set the ratio of used to maximum heap memory above which least-recently
+	 * used contexts are evicted, e.g. 0.8f. The most recently used context is
+	 * always kept. Since used heap includes unreachable objects, this is an
+	 * approximate bound only.
+	 * <p>The default is 1.0f, i.e. no heap-based eviction.
+	 */
+	public synchronized void setMaxHeapRatio(float maxHeapRatio) {
+		Assert.isTrue(maxHeapRatio > 0 && maxHeapRatio <= 1.0f, "maxHeapRatio must be in the range (0, 1]");
+		this.maxHeapRatio = maxHeapRatio;
+		evictIfNecessary();
+	}
+
+	public synchronized float getMaxHeapRatio() {
+		return this.maxHeapRatio;
+	}
+
+	/**
+	 * Return the number of contexts currently pooled.
+	 */
+	public synchronized int size() {
+		return this.contexts.size();
+	}
+
+	/**
+	 * Return the context pooled under the given key, or {@code null}.
+	 */
+	public synchronized PooledContext get(Object key) {
+		return this.contexts.get(key);
+	}
+
+	/**
+	 * Add a refreshed context to the pool unless a context is already pooled
+	 * under the same key.
+	 * @return {@code true} if the context was added
+	 */
+	public boolean put(Object key, PooledContext context) {
+		Assert.notNull(key, "Key is required");
+		Assert.notNull(context, "PooledContext is required");
+		List<PooledContext> evicted;
+		synchronized (this) {
+			if (this.contexts.containsKey(key)) {
+				return false;
+			}
+			this.contexts.put(key, context);
+			evicted = evictIfNecessary();
+		}
+		closeContexts(evicted);
+		return true;
+	}
+
+	/**
+	 * Return the lock a builder holds while it checks for and, if missing, 
+	 * creates and adds the context for the given key, so that the context 
+	 * is refreshed only once. The lock must be acquired and released within
+	 * a single method.
+	 */
+	ReentrantLock getCreationLock(Object key) {
+		ReentrantLock lock = this.creationLocks.get(key);
+		if (lock == null) {
+			ReentrantLock newLock = new ReentrantLock();
+			lock = this.creationLocks.putIfAbsent(key, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Remove the creation lock for the given key once the context is pooled.
+	 * Builders still waiting on the lock find the pooled context after they
+	 * acquire it, and later builders find it without locking.
+	 */
+	void removeCreationLock(Object key, ReentrantLock lock) {
+		this.creationLocks.remove(key, lock);
+	}
+
+	/**
+	 * Remove the context pooled under the given key and close it.
+	 */
+	public void remove(Object key) {
+		PooledContext context;
+		synchronized (this) {
+			context = this.contexts.remove(key);
+		}
+		if (context != null) {
+			closeContext(context);
+		}
+	}
+
+	/**
+	 * Remove all pooled contexts and close them.
+	 */
+	public void clear() {
+		List<PooledContext> removed;
+		synchronized (this) {
+			removed = new ArrayList<PooledContext>(this.contexts.values());
+			this.contexts.clear();
+		}
+		closeContexts(removed);
+	}
+
+	private List<PooledContext> evictIfNecessary() {
+		List<PooledContext> evicted = new ArrayList<PooledContext>();
+		Iterator<PooledContext> iterator = this.contexts.values().iterator();
+		while (this.contexts.size() > 1 && (this.contexts.size() > this.maxSize || isHeapRatioExceeded())) {
+			evicted.add(iterator.next());
+			iterator.remove();
+		}
+		return evicted;
+	}
+
+	private boolean isHeapRatioExceeded() {
+		if (this.maxHeapRatio >= 1.0f) {
+			return false;
+		}
+		Runtime runtime = Runtime.getRuntime();
+		long used = runtime.totalMemory() - runtime.freeMemory();
+		return used > (long) (runtime.maxMemory() * this.maxHeapRatio);
+	}
+
+	private void closeContexts(List<PooledContext> contexts) {
+		for (PooledContext context : contexts) {
+			closeContext(context);
+		}
+	}
+
+	private void closeContext(PooledContext context) {
+		WebApplicationContext wac = context.getWebApplicationContext();
+		if (wac instanceof ConfigurableApplicationContext) {
+			try {
+				((ConfigurableApplicationContext) wac).close();
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Failed to close evicted WebApplicationContext " + wac.getDisplayName(), ex);
+			}
+		}
+	}
+
+
+	/**
+	 * A refreshed WebApplicationContext along with the ServletContext it was
+	 * initialized with and the {@link MvcSetup} resolved from it, which may 
+	 * be set after the context is pooled.
+	 */
+	public static class PooledContext {
+
+		private final ServletContext servletContext;
+
+		private final WebApplicationContext webApplicationContext;
+
+		private volatile MvcSetup mvcSetup;
+
+		/**
+		 * Create an instance.
+		 * @param mvcSetup the MvcSetup, or {@code null} if not initialized yet
+		 */
+		public PooledContext(ServletContext servletContext, WebApplicationContext wac, MvcSetup mvcSetup) {
+			Assert.notNull(servletContext, "ServletContext is required");
+			Assert.notNull(wac, "WebApplicationContext is required");
+			this.servletContext = servletContext;
+			this.webApplicationContext = wac;
+			this.mvcSetup = mvcSetup;
+		}
+
+		public ServletContext getServletContext() {
+			return this.servletContext;
+		}
+
+		public WebApplicationContext getWebApplicationContext() {
+			return this.webApplicationContext;
+		}
+
+		/**
+		 * Return the MvcSetup, or {@code null} if not initialized yet.
+		 */
+		public MvcSetup getMvcSetup() {
+			return this.mvcSetup;
+		}
+
+		synchronized void initMvcSetup(MvcSetup mvcSetup) {
+			if (this.mvcSetup == null) {
+				this.mvcSetup = mvcSetup;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.handler.BeanNameUrlHandlerMapping;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+/**
+ * Tests for {@link FrozenMvcSetup}.
+ */
+public class FrozenMvcSetupTests {
+
+	@Test
+	public void snapshot() {
+		HandlerMapping first = new BeanNameUrlHandlerMapping();
+		HandlerMapping second = new SimpleUrlHandlerMapping();
+
+		List<HandlerMapping> handlerMappings = new ArrayList<HandlerMapping>();
+		handlerMappings.add(first);
+		handlerMappings.add(second);
+
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(handlerMappings, null, null, null, null, null, null);
+		handlerMappings.clear();
+
+		assertEquals(2, mvcSetup.getHandlerMappingCount());
+		assertSame(first, mvcSetup.getHandlerMapping(0));
+		assertSame(second, mvcSetup.getHandlerMapping(1));
+		assertEquals(2, mvcSetup.getHandlerMappings().size());
+		assertEquals(0, mvcSetup.getHandlerAdapterCount());
+		assertEquals(0, mvcSetup.getExceptionResolvers().size());
+	}
+
+	@Test
+	public void listsAreCreatedOnce() {
+		List<ViewResolver> viewResolvers = new ArrayList<ViewResolver>();
+		viewResolvers.add(new InternalResourceViewResolver());
+
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(null, null, null, viewResolvers, null, null, null);
+
+		assertSame(mvcSetup.getViewResolvers(), mvcSetup.getViewResolvers());
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void listsAreUnmodifiable() {
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(null, null, null, null, null, null, null);
+		mvcSetup.getHandlerMappings().add(new BeanNameUrlHandlerMapping());
+	}
+
+	@Test
+	public void freeze() {
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(null, null, null, null, null, null, null);
+		assertSame(mvcSetup, FrozenMvcSetup.freeze(mvcSetup));
+	}
+
+	@Test
+	public void cachesBySize() {
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(null, null, null, null, null, null, null);
+		assertNull(mvcSetup.getHandlerCache(10));
+
+		BoundedCache<HandlerCacheKey, CachedHandler> handlerCache = mvcSetup.obtainHandlerCache(10);
+		assertSame(handlerCache, mvcSetup.obtainHandlerCache(10));
+		assertSame(handlerCache, mvcSetup.getHandlerCache(10));
+		assertEquals(10, handlerCache.getMaxSize());
+		assertEquals(20, mvcSetup.obtainHandlerCache(20).getMaxSize());
+
+		BoundedCache<String, View> viewCache = mvcSetup.obtainViewCache(10);
+		assertSame(viewCache, mvcSetup.obtainViewCache(10));
+		assertNotSame(viewCache, mvcSetup.obtainViewCache(20));
+		assertEquals(20, mvcSetup.getViewCache(20).getMaxSize());
+	}
+
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.server.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.server.result.MockMvcResultActions.response;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+import org.springframework.web.servlet.support.DefaultFlashMapManager;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+/**
+ * Tests for {@link MockDispatcher}, a single instance of which serves all
+ * requests of a {@link MockMvc}, and for the caches it uses when enabled 
+ * through {@link DispatchOptions}.
+ */
+public class MockDispatcherTests {
+
+	@Test
+	public void concurrentRequests() throws Exception {
+		final CountDownLatch handling = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		CountingHandlerAdapter adapter = new CountingHandlerAdapter(Object.class) {
+			@Override
+			public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				if (request.getParameter("block") != null) {
+					handling.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.handle(request, response, handler);
+			}
+		};
+		DispatchOptions options = new DispatchOptions();
+		options.setSkipRendering(true);
+		final MockMvc mockMvc = createMockMvc(Arrays.<HandlerAdapter>asList(adapter), options);
+
+		final ResultActions[] blocked = new ResultActions[1];
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					blocked[0] = mockMvc.perform(get("/other").param("block", "true"));
+				}
+				catch (Exception ex) {
+					// fails the assertions below
+				}
+			}
+		};
+		thread.start();
+		assertTrue(handling.await(5, TimeUnit.SECONDS));
+
+		mockMvc.perform(get("/").param("view", "home")).andExpect(new HandlerAndViewMatcher(TestHandler.class, "home"));
+
+		release.countDown();
+		thread.join(5000);
+		blocked[0].andExpect(new HandlerAndViewMatcher(OtherHandler.class, null));
+	}
+
+	/**
+	 * Dispatching through the shared dispatcher allocates nothing beyond what
+	 * the Spring MVC components themselves allocate, here nothing at all. The
+	 * per-request {@link DispatchResult} is allocated by MockMvc.
+	 */
+	@Test
+	public void noAllocationPerRequest() throws Exception {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Method getThreadAllocatedBytes = getThreadAllocatedBytesMethod(threadBean);
+		Assume.assumeTrue(getThreadAllocatedBytes != null);
+
+		final HandlerExecutionChain chain = new HandlerExecutionChain(new TestHandler());
+		HandlerMapping handlerMapping = new HandlerMapping() {
+			public HandlerExecutionChain getHandler(HttpServletRequest request) {
+				return chain;
+			}
+		};
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(Arrays.asList(handlerMapping), 
+				Arrays.<HandlerAdapter>asList(new CountingHandlerAdapter(TestHandler.class)), 
+				null, null, null, new AcceptHeaderLocaleResolver(), null);
+		DispatchOptions options = new DispatchOptions();
+		options.setBindRequestContext(false);
+		MockDispatcher dispatcher = new MockDispatcher(mvcSetup, options);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		DispatchResult result = new DispatchResult(request, response);
+		long threadId = Thread.currentThread().getId();
+		int requestCount = 10000;
+
+		for (int i = 0; i < requestCount; i++) {
+			dispatcher.execute(request, response, result);
+		}
+		getThreadAllocatedBytes.invoke(threadBean, threadId);
+
+		long before = (Long) getThreadAllocatedBytes.invoke(threadBean, threadId);
+		for (int i = 0; i < requestCount; i++) {
+			dispatcher.execute(request, response, result);
+		}
+		long allocated = (Long) getThreadAllocatedBytes.invoke(threadBean, threadId) - before;
+
+		assertTrue("Allocated " + allocated + " bytes for " + requestCount + " requests", allocated < requestCount);
+	}
+
+	/**
+	 * Return {@code getThreadAllocatedBytes(long)} of the HotSpot ThreadMXBean 
+	 * extension, or {@code null} if not available or turned off.
+	 */
+	private static Method getThreadAllocatedBytesMethod(ThreadMXBean threadBean) {
+		try {
+			Class<?> beanType = Class.forName("com.sun.management.ThreadMXBean");
+			if (!beanType.isInstance(threadBean) || 
+					!(Boolean) beanType.getMethod("isThreadAllocatedMemoryEnabled").invoke(threadBean)) {
+				return null;
+			}
+			return beanType.getMethod("getThreadAllocatedBytes", long.class);
+		}
+		catch (Exception ex) {
+			return null;
+		}
+	}
+
+	@Test
+	public void handlerCacheReplaysAttributes() throws Exception {
+		MockMvc mockMvc = standaloneSetup(new PersonController()).cacheHandlers(16).build();
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(get("/persons/1"))
+					.andExpect(response().status().isOk())
+					.andExpect(response().content().isEqualTo("1 [application/json]"));
+		}
+		mockMvc.perform(get("/persons/2"))
+				.andExpect(response().content().isEqualTo("2 [application/json]"));
+
+		BoundedCache<?, ?> cache = mockMvc.getMvcSetup().getHandlerCache(16);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void handlerCacheNoHandler() throws Exception {
+		MockMvc mockMvc = standaloneSetup(new PersonController()).cacheHandlers(16).build();
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(get("/missing")).andExpect(response().status().isNotFound());
+		}
+
+		BoundedCache<?, ?> cache = mockMvc.getMvcSetup().getHandlerCache(16);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+
+	@Test
+	public void handlerAdapterCache() throws Exception {
+		CountingHandlerAdapter first = new CountingHandlerAdapter(String.class);
+		CountingHandlerAdapter second = new CountingHandlerAdapter(TestHandler.class);
+		MockMvc mockMvc = createMockMvc(Arrays.<HandlerAdapter>asList(first, second), new DispatchOptions());
+
+		mockMvc.perform(get("/"));
+		mockMvc.perform(get("/"));
+
+		assertEquals(1, first.supportsCount);
+		assertEquals(1, second.supportsCount);
+		assertEquals(2, second.handleCount);
+		assertSame(second, mockMvc.getMvcSetup().getHandlerAdapterCache(false).get(TestHandler.class));
+	}
+
+	@Test
+	public void handlerAdapterCacheTurnedOff() throws Exception {
+		CountingHandlerAdapter first = new CountingHandlerAdapter(String.class);
+		CountingHandlerAdapter second = new CountingHandlerAdapter(TestHandler.class);
+		DispatchOptions options = new DispatchOptions();
+		options.setCacheHandlerAdapters(false);
+		MockMvc mockMvc = createMockMvc(Arrays.<HandlerAdapter>asList(first, second), options);
+
+		mockMvc.perform(get("/"));
+		mockMvc.perform(get("/"));
+
+		assertEquals(2, first.supportsCount);
+		assertEquals(2, second.supportsCount);
+		assertEquals(0, mockMvc.getMvcSetup().getHandlerAdapterCache(false).size());
+	}
+
+	@Test
+	public void nonCacheableHandlerAdapter() throws Exception {
+		CountingHandlerAdapter first = new NonCacheableCountingHandlerAdapter(String.class);
+		CountingHandlerAdapter second = new CountingHandlerAdapter(TestHandler.class);
+		MockMvc mockMvc = createMockMvc(Arrays.<HandlerAdapter>asList(first, second), new DispatchOptions());
+
+		mockMvc.perform(get("/"));
+		mockMvc.perform(get("/"));
+
+		assertEquals(2, first.supportsCount);
+		assertEquals(2, second.supportsCount);
+		assertEquals(2, second.handleCount);
+		assertEquals(0, mockMvc.getMvcSetup().getHandlerAdapterCache(false).size());
+	}
+
+	@Test
+	public void viewCacheByLocale() throws Exception {
+		CountingViewResolver viewResolver = new CountingViewResolver();
+		MockMvc mockMvc = createViewMockMvc(viewResolver);
+
+		mockMvc.perform(get("/").param("view", "home").locale(Locale.ENGLISH));
+		mockMvc.perform(get("/").param("view", "home").locale(Locale.ENGLISH));
+		mockMvc.perform(get("/").param("view", "home").locale(Locale.FRENCH));
+
+		assertEquals(2, viewResolver.resolveCount);
+		BoundedCache<?, ?> cache = mockMvc.getMvcSetup().getViewCache(16);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void viewCacheRedirectAndForward() throws Exception {
+		CountingViewResolver viewResolver = new CountingViewResolver();
+		MockMvc mockMvc = createViewMockMvc(viewResolver);
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(get("/").param("view", "redirect:/home"));
+			mockMvc.perform(get("/").param("view", "forward:/home"));
+		}
+
+		assertEquals(4, viewResolver.resolveCount);
+		assertEquals(0, mockMvc.getMvcSetup().getViewCache(16).size());
+	}
+
+	@Test
+	public void viewCacheRedirectWithCachingViewResolver() throws Exception {
+		MockMvc mockMvc = createViewMockMvc(new InternalResourceViewResolver());
+
+		mockMvc.perform(get("/").param("view", "redirect:/home"));
+		mockMvc.perform(get("/").param("view", "redirect:/home"))
+				.andExpect(response().redirectedUrl("/home"));
+
+		assertEquals(1, mockMvc.getMvcSetup().getViewCache(16).getHitCount());
+	}
+
+	@Test
+	public void viewCacheRedirectWithCachingTurnedOff() throws Exception {
+		InternalResourceViewResolver viewResolver = new InternalResourceViewResolver();
+		viewResolver.setCache(false);
+		MockMvc mockMvc = createViewMockMvc(viewResolver);
+
+		mockMvc.perform(get("/").param("view", "redirect:/home"));
+		mockMvc.perform(get("/").param("view", "redirect:/home"))
+				.andExpect(response().redirectedUrl("/home"));
+
+		BoundedCache<?, ?> cache = mockMvc.getMvcSetup().getViewCache(16);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void exceptionResolverCache() throws Exception {
+		CountingExceptionResolver first = new CountingExceptionResolver(OtherHandler.class, null);
+		CountingExceptionResolver second = new CountingExceptionResolver(Object.class, "decline");
+		CountingExceptionResolver third = new CountingExceptionResolver(Object.class, null);
+		DispatchOptions options = new DispatchOptions();
+		options.setCacheExceptionResolvers(true);
+		MockMvc mockMvc = createMockMvc(Arrays.<HandlerAdapter>asList(new CountingHandlerAdapter(Object.class)), 
+				Arrays.<HandlerExceptionResolver>asList(first, second, third), null, options);
+
+		// The first resolver declines for TestHandler, the second resolves and is cached
+		mockMvc.perform(get("/").param("error", "true"));
+		assertResolveCounts(1, 1, 0, first, second, third);
+
+		// Cached: the second resolver is asked directly
+		mockMvc.perform(get("/").param("error", "true"));
+		assertResolveCounts(1, 2, 0, first, second, third);
+
+		// Different handler type: all resolvers in order, the first resolves
+		mockMvc.perform(get("/other").param("error", "true"));
+		assertResolveCounts(2, 2, 0, first, second, third);
+
+		// Cached resolver declines: the others are asked in order, the third resolves and is cached
+		mockMvc.perform(get("/").param("error", "true").param("decline", "true"));
+		assertResolveCounts(3, 3, 1, first, second, third);
+
+		mockMvc.perform(get("/").param("error", "true").param("decline", "true"));
+		assertResolveCounts(3, 3, 2, first, second, third);
+	}
+
+	private static void assertResolveCounts(int firstCount, int secondCount, int thirdCount, 
+			CountingExceptionResolver first, CountingExceptionResolver second, CountingExceptionResolver third) {
+
+		assertEquals(firstCount, first.resolveCount);
+		assertEquals(secondCount, second.resolveCount);
+		assertEquals(thirdCount, third.resolveCount);
+	}
+
+	private static MockMvc createViewMockMvc(ViewResolver viewResolver) {
+		DispatchOptions options = new DispatchOptions();
+		options.setViewCacheSize(16);
+		return createMockMvc(Arrays.<HandlerAdapter>asList(new CountingHandlerAdapter(TestHandler.class)), 
+				null, Arrays.asList(viewResolver), options);
+	}
+
+	private static MockMvc createMockMvc(List<HandlerAdapter> handlerAdapters, DispatchOptions options) {
+		return createMockMvc(handlerAdapters, null, null, options);
+	}
+
+	private static MockMvc createMockMvc(List<HandlerAdapter> handlerAdapters, 
+			List<HandlerExceptionResolver> exceptionResolvers, List<ViewResolver> viewResolvers, DispatchOptions options) {
+
+		HandlerMapping handlerMapping = new HandlerMapping() {
+			public HandlerExecutionChain getHandler(HttpServletRequest request) {
+				Object handler = request.getRequestURI().equals("/other") ? new OtherHandler() : new TestHandler();
+				return new HandlerExecutionChain(handler);
+			}
+		};
+		FrozenMvcSetup mvcSetup = new FrozenMvcSetup(Arrays.asList(handlerMapping), handlerAdapters, 
+				exceptionResolvers, viewResolvers, null, new AcceptHeaderLocaleResolver(), new DefaultFlashMapManager());
+		return new MockMvc(new MockServletContext(), mvcSetup, null, options) {};
+	}
+
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class PersonController {
+
+		@RequestMapping(value="/persons/{id}", produces="application/json")
+		public @ResponseBody String get(@PathVariable String id, HttpServletRequest request) {
+			return id + " " + request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		}
+	}
+
+	private static class TestHandler {
+	}
+
+	private static class HandlerAndViewMatcher implements ResultMatcher {
+
+		private final Class<?> handlerType;
+
+		private final String viewName;
+
+		public HandlerAndViewMatcher(Class<?> handlerType, String viewName) {
+			this.handlerType = handlerType;
+			this.viewName = viewName;
+		}
+
+		public void match(MockHttpServletRequest request, MockHttpServletResponse response, Object handler,
+				HandlerInterceptor[] interceptors, ModelAndView mav, Exception resolvedException) {
+
+			assertEquals(this.handlerType, handler.getClass());
+			assertEquals(this.viewName, (mav != null) ? mav.getViewName() : null);
+		}
+	}
+
+	private static class OtherHandler {
+	}
+
+	private static class CountingHandlerAdapter implements HandlerAdapter {
+
+		private final Class<?> handlerType;
+
+		private int supportsCount;
+
+		private int handleCount;
+
+		public CountingHandlerAdapter(Class<?> handlerType) {
+			this.handlerType = handlerType;
+		}
+
+		public boolean supports(Object handler) {
+			this.supportsCount++;
+			return this.handlerType.isInstance(handler);
+		}
+
+		public ModelAndView handle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+			this.handleCount++;
+			if (request.getParameter("error") != null) {
+				throw new IllegalStateException();
+			}
+			String viewName = request.getParameter("view");
+			return (viewName != null) ? new ModelAndView(viewName) : null;
+		}
+
+		public long getLastModified(HttpServletRequest request, Object handler) {
+			return -1;
+		}
+	}
+
+	private static class NonCacheableCountingHandlerAdapter extends CountingHandlerAdapter 
+			implements NonCacheableHandlerAdapter {
+
+		public NonCacheableCountingHandlerAdapter(Class<?> handlerType) {
+			super(handlerType);
+		}
+	}
+
+	private static class CountingViewResolver implements ViewResolver {
+
+		private int resolveCount;
+
+		public View resolveViewName(String viewName, Locale locale) {
+			this.resolveCount++;
+			return new View() {
+				public String getContentType() {
+					return null;
+				}
+				public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+				}
+			};
+		}
+	}
+
+	/**
+	 * Resolves exceptions for handlers of the given type unless the request 
+	 * has the given "decline" parameter.
+	 */
+	private static class CountingExceptionResolver implements HandlerExceptionResolver {
+
+		private final Class<?> handlerType;
+
+		private final String declineParameter;
+
+		private int resolveCount;
+
+		public CountingExceptionResolver(Class<?> handlerType, String declineParameter) {
+			this.handlerType = handlerType;
+			this.declineParameter = declineParameter;
+		}
+
+		public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, 
+				Object handler, Exception ex) {
+
+			this.resolveCount++;
+			if (!this.handlerType.isInstance(handler) || 
+					(this.declineParameter != null && request.getParameter(this.declineParameter) != null)) {
+				return null;
+			}
+			return new ModelAndView();
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.context;
+
+import static org.junit.Assert.assertSame;
+import static org.springframework.test.web.server.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.server.result.MockMvcResultActions.response;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.web.server.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests for {@link MockMvcTestExecutionListener}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(
+		loader=MockMvcTestExecutionListenerTests.TestContextLoader.class,
+		locations={"/org/springframework/test/web/server/samples/servlet-context.xml"})
+@TestExecutionListeners({MockMvcTestExecutionListener.class, DependencyInjectionTestExecutionListener.class})
+public class MockMvcTestExecutionListenerTests {
+
+	private static MockMvc previousMockMvc;
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	public void registeredInContext() throws Exception {
+		assertSame(this.wac.getBean(MockMvcTestExecutionListener.MOCK_MVC_BEAN_NAME), this.mockMvc);
+
+		this.mockMvc.perform(get("/"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().forwardedUrl("/WEB-INF/layouts/standardLayout.jsp"));
+	}
+
+	@Test
+	public void reusedAcrossTests() {
+		assertReused();
+	}
+
+	@Test
+	public void reusedAcrossTestsAgain() {
+		assertReused();
+	}
+
+	private void assertReused() {
+		if (previousMockMvc != null) {
+			assertSame(previousMockMvc, this.mockMvc);
+		}
+		previousMockMvc = this.mockMvc;
+	}
+
+
+	public static class TestContextLoader extends GenericWebXmlContextLoader {
+
+		public TestContextLoader() {
+			super("src/test/resources/META-INF/web-resources", false);
+		}
+	}
+
+}
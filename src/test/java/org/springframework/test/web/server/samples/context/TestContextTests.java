@@ -26,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.web.server.MockMvc;
+import org.springframework.test.web.server.context.GenericWebXmlContextLoader;
 import org.springframework.test.web.server.setup.MockMvcBuilders;
 import org.springframework.web.context.ContextLoader;
 import org.springframework.web.context.WebApplicationContext;
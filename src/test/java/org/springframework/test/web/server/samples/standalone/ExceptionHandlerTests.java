@@ -22,6 +22,7 @@ import static org.springframework.test.web.server.setup.MockMvcBuilders.standalo
 
 import org.junit.Test;
 import org.springframework.stereotype.Controller;
+import org.springframework.test.web.server.MockMvc;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -42,6 +43,16 @@ public class ExceptionHandlerTests {
                 .andExpect(response().forwardedUrl("errorView"));
 	}	
 
+	@Test
+	public void handleExceptionWithCachedResolver() throws Exception {
+		MockMvc mockMvc = standaloneSetup(new PersonController()).setCacheExceptionResolvers(true).build();
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(get("/person/Clyde"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().forwardedUrl("errorView"));
+		}
+	}
+
 	
 	@Controller
 	@SuppressWarnings("unused")
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.samples.standalone;
+
+import static org.springframework.test.web.server.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.server.result.MockMvcResultActions.*;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Tests with Servlet filters.
+ */
+public class FilterTests {
+
+	@Test
+	public void filterAllRequests() throws Exception {
+		standaloneSetup(new PersonController()).addFilters(new HeaderFilter()).build()
+			.perform(get("/persons"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().header("X-Filtered", "true"))
+				.andExpect(response().content().isEqualTo("persons"));
+	}
+
+	@Test
+	public void filterByUrlPattern() throws Exception {
+		standaloneSetup(new PersonController()).addFilter(new RejectingFilter(), "/secure/*").build()
+			.perform(get("/persons"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().content().isEqualTo("persons"));
+	}
+
+	@Test
+	public void filterCommitsResponse() throws Exception {
+		standaloneSetup(new PersonController()).addFilter(new RejectingFilter(), "*.xml").build()
+			.perform(get("/persons.xml"))
+				.andExpect(response().status().isForbidden());
+	}
+
+	private static class HeaderFilter extends OncePerRequestFilter {
+
+		@Override
+		protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+				FilterChain filterChain) throws ServletException, IOException {
+
+			response.setHeader("X-Filtered", "true");
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	private static class RejectingFilter extends OncePerRequestFilter {
+
+		@Override
+		protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+				FilterChain filterChain) throws ServletException, IOException {
+
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+		}
+	}
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class PersonController {
+
+		@RequestMapping("/persons")
+		public @ResponseBody String list() {
+			return "persons";
+		}
+	}
+
+}
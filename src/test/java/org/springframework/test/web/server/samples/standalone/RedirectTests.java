@@ -20,14 +20,25 @@ import static org.springframework.test.web.server.request.MockMvcRequestBuilders
 import static org.springframework.test.web.server.result.MockMvcResultActions.*;
 import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import org.junit.Test;
+import org.springframework.core.MethodParameter;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.Errors;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 /**
  * Tests with redirect scenarios.
@@ -59,9 +70,64 @@ public class RedirectTests {
 	            .andExpect(flashMap().size(0));
 	}
 
+	@Test
+	public void testFlashMapNotUsed() throws Exception {
+		standaloneSetup(new PersonController()).build()
+			.perform(get("/persons/add"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().forwardedUrl("person/add"))
+				.andExpect(flashMap().size(0));
+	}
+
+	@Test
+	public void testFlashMapsTurnedOff() throws Exception {
+		standaloneSetup(new PersonController()).setUseFlashMaps(false).build()
+			.perform(get("/persons/add"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().forwardedUrl("person/add"))
+				.andExpect(flashMap().size(0));
+	}
+
+	@Test
+	public void testFlashAttributeThroughRequestContextHolder() throws Exception {
+		standaloneSetup(new FlashController()).build()
+			.perform(get("/flash/holder"))
+				.andExpect(response().redirectedUrl("/person/1"))
+				.andExpect(flashMap().attribute("message", "holder"));
+	}
+
+	@Test
+	public void testFlashAttributeThroughArgumentResolver() throws Exception {
+		standaloneSetup(new FlashController()).setCustomArgumentResolvers(new FlashWriterArgumentResolver()).build()
+			.perform(get("/flash/resolver"))
+				.andExpect(response().redirectedUrl("/person/1"))
+				.andExpect(flashMap().attribute("message", "resolver"));
+	}
+
+	@Test
+	public void testFlashAttributeFromModelAttributeMethod() throws Exception {
+		standaloneSetup(new ModelAttributeFlashController()).build()
+			.perform(get("/flash/modelAttribute"))
+				.andExpect(response().redirectedUrl("/person/1"))
+				.andExpect(flashMap().attribute("message", "modelAttribute"));
+	}
+
+	@Test
+	public void testFlashAttributeFromExceptionHandler() throws Exception {
+		standaloneSetup(new ExceptionHandlerFlashController()).build()
+			.perform(get("/flash/exceptionHandler"))
+				.andExpect(response().redirectedUrl("/person/1"))
+				.andExpect(flashMap().attribute("message", "exceptionHandler"));
+	}
+
 	@Controller
 	@SuppressWarnings("unused")
 	private static class PersonController {
+
+		@RequestMapping(value="/persons/add", method=RequestMethod.GET)
+		public String add() {
+			return "person/add";
+		}
 		
 		@RequestMapping(value="/persons", method=RequestMethod.POST)
 		public String save(@Valid Person person, Errors errors, RedirectAttributes redirectAttrs) {
@@ -73,5 +139,79 @@ public class RedirectTests {
 			return "redirect:/person/{id}";
 		}
 	}
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class FlashController {
+
+		@RequestMapping("/flash/holder")
+		public String holder() {
+			HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+			RequestContextUtils.getOutputFlashMap(request).put("message", "holder");
+			return "redirect:/person/1";
+		}
+
+		@RequestMapping("/flash/resolver")
+		public String resolver(FlashWriter flashWriter) {
+			flashWriter.write("message", "resolver");
+			return "redirect:/person/1";
+		}
+	}
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class ModelAttributeFlashController {
+
+		@ModelAttribute
+		public void addFlashAttribute(HttpServletRequest request) {
+			RequestContextUtils.getOutputFlashMap(request).put("message", "modelAttribute");
+		}
+
+		@RequestMapping("/flash/modelAttribute")
+		public String show() {
+			return "redirect:/person/1";
+		}
+	}
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class ExceptionHandlerFlashController {
+
+		@RequestMapping("/flash/exceptionHandler")
+		public String show() {
+			throw new IllegalStateException();
+		}
+
+		@ExceptionHandler
+		public String handle(IllegalStateException ex, HttpServletRequest request) {
+			RequestContextUtils.getOutputFlashMap(request).put("message", "exceptionHandler");
+			return "redirect:/person/1";
+		}
+	}
+
+	private static class FlashWriter {
+
+		private final HttpServletRequest request;
+
+		public FlashWriter(HttpServletRequest request) {
+			this.request = request;
+		}
+
+		public void write(String name, Object value) {
+			RequestContextUtils.getOutputFlashMap(this.request).put(name, value);
+		}
+	}
+
+	private static class FlashWriterArgumentResolver implements HandlerMethodArgumentResolver {
+
+		public boolean supportsParameter(MethodParameter parameter) {
+			return FlashWriter.class.equals(parameter.getParameterType());
+		}
+
+		public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+				NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+			return new FlashWriter(webRequest.getNativeRequest(HttpServletRequest.class));
+		}
+	}
 	
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.samples.standalone;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.server.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.server.result.MockMvcResultActions.model;
+import static org.springframework.test.web.server.result.MockMvcResultActions.request;
+import static org.springframework.test.web.server.result.MockMvcResultActions.response;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.server.MockMvc;
+import org.springframework.test.web.server.result.DefaultResultPrinter;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Tests that stop after the handler and assert on the model without 
+ * resolving and rendering the view.
+ */
+public class SkipRenderingTests {
+
+	@Test
+	public void builderSetting() throws Exception {
+		
+		// Skip rendering for all requests
+		
+		standaloneSetup(new PersonController())
+			.setSkipRendering(true).build()
+				.perform(get("/person/Patrick"))
+					.andExpect(model().attribute("person", hasProperty("name", equalTo("Patrick"))))
+					.andExpect(response().status().isOk())
+					.andExpect(response().forwardedUrl(null))
+					.andExpect(request().requestAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, Boolean.TRUE));
+	}
+
+	@Test
+	public void requestBuilder() throws Exception {
+		
+		// Skip rendering for one request
+		
+		MockMvc mockMvc = standaloneSetup(new PersonController()).build();
+
+		mockMvc.perform(get("/person/Patrick").skipRendering())
+			.andExpect(model().attribute("person", hasProperty("name", equalTo("Patrick"))))
+			.andExpect(response().forwardedUrl(null))
+			.andExpect(request().requestAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, Boolean.TRUE));
+
+		mockMvc.perform(get("/person/Patrick"))
+			.andExpect(response().forwardedUrl("person/show"))
+			.andExpect(request().requestAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, null));
+	}
+
+	@Test
+	public void requestAttribute() throws Exception {
+		
+		// The request attribute set by the request builder
+		
+		standaloneSetup(new PersonController()).build()
+			.perform(get("/person/Patrick").requestAttr(MockMvc.SKIP_RENDERING_ATTRIBUTE, Boolean.TRUE))
+				.andExpect(response().forwardedUrl(null))
+				.andExpect(request().requestAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, Boolean.TRUE));
+	}
+
+	@Test
+	public void requestAttributeOverridesBuilderSetting() throws Exception {
+		
+		// Render one request despite the builder setting
+		
+		standaloneSetup(new PersonController())
+			.setSkipRendering(true).build()
+				.perform(get("/person/Patrick").requestAttr(MockMvc.SKIP_RENDERING_ATTRIBUTE, Boolean.FALSE))
+					.andExpect(response().forwardedUrl("person/show"))
+					.andExpect(request().requestAttribute(MockMvc.RENDERING_SKIPPED_ATTRIBUTE, null));
+	}
+
+	@Test
+	public void printRendering() throws Exception {
+		MockMvc mockMvc = standaloneSetup(new PersonController()).build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		mockMvc.perform(get("/person/Patrick").skipRendering()).andPrint(new DefaultResultPrinter(out) {});
+		assertThat(out.toString(), containsString("Rendering = skipped (model-only dispatch)"));
+
+		out.reset();
+		mockMvc.perform(get("/person/Patrick")).andPrint(new DefaultResultPrinter(out) {});
+		assertThat(out.toString(), containsString("Rendering = performed"));
+	}
+	
+	
+	@Controller
+	@SuppressWarnings("unused")
+	private static class PersonController {
+		
+		@RequestMapping(value="/person/{name}", method=RequestMethod.GET)
+		public String show(@PathVariable String name, Model model) {
+			Person person = new Person(name);
+			model.addAttribute(person);
+			return "person/show";
+		}
+	}
+	
+}
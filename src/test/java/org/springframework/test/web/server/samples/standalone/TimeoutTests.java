@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.samples.standalone;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.server.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.server.result.MockMvcResultActions.response;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.server.MockMvc;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Tests with request timeouts.
+ */
+public class TimeoutTests {
+
+	@Test
+	public void completesInTime() throws Exception {
+		standaloneSetup(new LatchController()).setTimeout(5000).build()
+			.perform(get("/fast"))
+				.andExpect(response().status().isOk())
+				.andExpect(response().content().isEqualTo("done"));
+	}
+
+	@Test
+	public void timesOut() throws Exception {
+		LatchController controller = new LatchController();
+		MockMvc mockMvc = standaloneSetup(controller).build();
+		try {
+			mockMvc.perform(get("/slow"), 100);
+			fail("Expected AssertionError");
+		}
+		catch (AssertionError error) {
+			assertTrue(error.getMessage().contains("/slow"));
+			assertTrue(error.getMessage().contains("Thread dump"));
+			assertTrue(error.getMessage().contains("mockmvc-worker-"));
+			assertTrue(error.getMessage().contains(Thread.currentThread().getName()));
+			assertNotNull(error.getCause());
+			assertTrue(error.getCause().getStackTrace().length > 0);
+		}
+		finally {
+			controller.latch.countDown();
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void invalidTimeout() throws Exception {
+		standaloneSetup(new LatchController()).build().perform(get("/fast"), 0);
+	}
+
+	@Controller
+	@SuppressWarnings("unused")
+	private static class LatchController {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		@RequestMapping("/fast")
+		public @ResponseBody String fast() {
+			return "done";
+		}
+
+		@RequestMapping("/slow")
+		public @ResponseBody String slow() throws InterruptedException {
+			this.latch.await();
+			return "done";
+		}
+	}
+
+}
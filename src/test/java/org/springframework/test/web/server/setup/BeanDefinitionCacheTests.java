@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.config.PropertyPlaceholderConfigurer;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tests for {@link BeanDefinitionCache} as used by {@link MockMvcXmlWebApplicationContext}.
+ */
+public class BeanDefinitionCacheTests {
+
+	private static final String BEANS_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+			"       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+			"       xmlns:context=\"http://www.springframework.org/schema/context\"\n" +
+			"       xsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+			"http://www.springframework.org/schema/beans/spring-beans.xsd " +
+			"http://www.springframework.org/schema/context " +
+			"http://www.springframework.org/schema/context/spring-context.xsd\">\n";
+
+	private static final String BEANS_END = "</beans>\n";
+
+	private static final String TEST_BEAN = TestBean.class.getName();
+
+	private static final long LAST_MODIFIED = 1000000000000L;
+
+	private File directory;
+
+	private final List<MockMvcXmlWebApplicationContext> contexts = new ArrayList<MockMvcXmlWebApplicationContext>();
+
+	@Before
+	public void setup() throws IOException {
+		BeanDefinitionCache.clear();
+		this.directory = File.createTempFile("bean-definition-cache", "");
+		this.directory.delete();
+		this.directory.mkdirs();
+		this.directory.deleteOnExit();
+	}
+
+	@After
+	public void teardown() {
+		for (MockMvcXmlWebApplicationContext context : this.contexts) {
+			context.close();
+		}
+		BeanDefinitionCache.clear();
+	}
+
+	@Test
+	public void cacheHit() throws Exception {
+		File config = writeFile("config.xml", LAST_MODIFIED, bean("testBean", "one"));
+		assertEquals("one", createContext(config, null).getBean("testBean", TestBean.class).getName());
+
+		writeFile("config.xml", LAST_MODIFIED, bean("testBean", "two"));
+		assertEquals("one", createContext(config, null).getBean("testBean", TestBean.class).getName());
+	}
+
+	@Test
+	public void cacheHitReturnsCopies() throws Exception {
+		File config = writeFile("config.xml", LAST_MODIFIED, bean("testBean", "${name}"));
+
+		MockMvcXmlWebApplicationContext first = createContext(config, placeholders("name", "one"));
+		MockMvcXmlWebApplicationContext second = createContext(config, placeholders("name", "two"));
+		MockMvcXmlWebApplicationContext third = createContext(config, placeholders("name", "three"));
+
+		assertEquals("one", first.getBean("testBean", TestBean.class).getName());
+		assertEquals("two", second.getBean("testBean", TestBean.class).getName());
+		assertEquals("three", third.getBean("testBean", TestBean.class).getName());
+		assertNotSame(second.getBeanFactory().getBeanDefinition("testBean"), 
+				third.getBeanFactory().getBeanDefinition("testBean"));
+	}
+
+	@Test
+	public void importedResourceModified() throws Exception {
+		writeFile("imported.xml", LAST_MODIFIED, bean("testBean", "one"));
+		File config = writeFile("config.xml", LAST_MODIFIED, "<import resource=\"imported.xml\"/>\n");
+		assertEquals("one", createContext(config, null).getBean("testBean", TestBean.class).getName());
+
+		writeFile("imported.xml", LAST_MODIFIED + 10000, bean("testBean", "two"));
+		assertEquals("two", createContext(config, null).getBean("testBean", TestBean.class).getName());
+	}
+
+	@Test
+	public void scannedClassModified() throws Exception {
+		String scan = 
+				"<context:component-scan base-package=\"" + ScannedBean.class.getPackage().getName() + "\"\n" +
+				"    use-default-filters=\"false\">\n" +
+				"  <context:include-filter type=\"assignable\" expression=\"" + ScannedBean.class.getName() + "\"/>\n" +
+				"</context:component-scan>\n";
+		File config = writeFile("config.xml", LAST_MODIFIED, scan + bean("testBean", "one"));
+		MockMvcXmlWebApplicationContext context = createContext(config, null);
+		assertEquals("one", context.getBean("testBean", TestBean.class).getName());
+		assertTrue(context.containsBean("scannedBean"));
+
+		writeFile("config.xml", LAST_MODIFIED, scan + bean("testBean", "two"));
+		assertEquals("one", createContext(config, null).getBean("testBean", TestBean.class).getName());
+
+		File classFile = new File(ScannedBean.class.getResource("BeanDefinitionCacheTests$ScannedBean.class").toURI());
+		long classLastModified = classFile.lastModified();
+		classFile.setLastModified(classLastModified + 10000);
+		try {
+			assertEquals("two", createContext(config, null).getBean("testBean", TestBean.class).getName());
+		}
+		finally {
+			classFile.setLastModified(classLastModified);
+		}
+	}
+
+	@Test
+	public void wildcardImportResourceAdded() throws Exception {
+		writeFile("beans-one.xml", LAST_MODIFIED, bean("testBean", "one"));
+		String pattern = new File(this.directory, "beans-*.xml").toURI().toString();
+		File config = writeFile("config.xml", LAST_MODIFIED, "<import resource=\"" + pattern + "\"/>\n");
+		assertEquals(1, createContext(config, null).getBeanDefinitionCount());
+
+		writeFile("beans-two.xml", LAST_MODIFIED, bean("otherBean", "two"));
+		MockMvcXmlWebApplicationContext context = createContext(config, null);
+		assertEquals(2, context.getBeanDefinitionCount());
+		assertEquals("two", context.getBean("otherBean", TestBean.class).getName());
+	}
+
+	@Test
+	public void aliasesAndInnerBeans() throws Exception {
+		String holder = 
+				"<bean id=\"holder\" name=\"alias1,alias2\" class=\"" + Holder.class.getName() + "\">\n" +
+				"  <property name=\"list\"><list>" + innerBean("${name}") + "</list></property>\n" +
+				"  <property name=\"map\"><map><entry key=\"key\">" + innerBean("${name}") + "</entry></map></property>\n" +
+				"</bean>\n";
+		File config = writeFile("config.xml", LAST_MODIFIED, holder);
+
+		createContext(config, placeholders("name", "one"));
+		MockMvcXmlWebApplicationContext context = createContext(config, placeholders("name", "two"));
+
+		assertEquals(new HashSet<String>(Arrays.asList("alias1", "alias2")), 
+				new HashSet<String>(Arrays.asList(context.getAliases("holder"))));
+		assertSame(context.getBean("holder"), context.getBean("alias1"));
+
+		Holder bean = context.getBean("holder", Holder.class);
+		assertEquals("two", bean.getList().get(0).getName());
+		assertEquals("two", bean.getMap().get("key").getName());
+	}
+
+	private MockMvcXmlWebApplicationContext createContext(File config, PropertyPlaceholderConfigurer configurer) {
+		MockMvcXmlWebApplicationContext context = new MockMvcXmlWebApplicationContext();
+		context.setServletContext(new MockServletContext());
+		context.setConfigLocation(config.toURI().toString());
+		if (configurer != null) {
+			context.addBeanFactoryPostProcessor(configurer);
+		}
+		context.refresh();
+		this.contexts.add(context);
+		return context;
+	}
+
+	private File writeFile(String name, long lastModified, String beans) throws IOException {
+		File file = new File(this.directory, name);
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write((BEANS_START + beans + BEANS_END).getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+		file.setLastModified(lastModified);
+		return file;
+	}
+
+	private static String bean(String name, String value) {
+		return "<bean id=\"" + name + "\" class=\"" + TEST_BEAN + "\"><property name=\"name\" value=\"" + value + "\"/></bean>\n";
+	}
+
+	private static String innerBean(String value) {
+		return "<bean class=\"" + TEST_BEAN + "\"><property name=\"name\" value=\"" + value + "\"/></bean>";
+	}
+
+	private static PropertyPlaceholderConfigurer placeholders(String name, String value) {
+		Properties properties = new Properties();
+		properties.setProperty(name, value);
+		PropertyPlaceholderConfigurer configurer = new PropertyPlaceholderConfigurer();
+		configurer.setProperties(properties);
+		return configurer;
+	}
+
+
+	public static class TestBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	@Component("scannedBean")
+	public static class ScannedBean {
+	}
+
+	public static class Holder {
+
+		private List<TestBean> list;
+
+		private Map<String, TestBean> map;
+
+		public List<TestBean> getList() {
+			return this.list;
+		}
+
+		public void setList(List<TestBean> list) {
+			this.list = list;
+		}
+
+		public Map<String, TestBean> getMap() {
+			return this.map;
+		}
+
+		public void setMap(Map<String, TestBean> map) {
+			this.map = map;
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.annotationConfigSetup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tests for {@link BeanOverrides}.
+ */
+public class BeanOverridesTests {
+
+	private WebApplicationContextPool pool;
+
+	@Before
+	public void setUp() {
+		this.pool = new WebApplicationContextPool();
+	}
+
+	@After
+	public void tearDown() {
+		this.pool.clear();
+	}
+
+	@Test
+	public void overrideAndRestore() {
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).build();
+		TestController controller = TestConfig.controller;
+		ApplicationContext wac = controller.applicationContext;
+		TestService original = wac.getBean(TestService.class);
+
+		TestService stub = new TestService();
+		BeanOverrides overrides = new BeanOverrides().override("testService", stub);
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).applyBeanOverrides(overrides).build();
+
+		assertTrue(overrides.isApplied());
+		assertSame(stub, wac.getBean("testService"));
+		assertSame(stub, controller.service);
+
+		overrides.restore();
+
+		assertFalse(overrides.isApplied());
+		assertSame(original, wac.getBean("testService"));
+		assertSame(original, controller.service);
+	}
+
+
+	@Configuration
+	public static class TestConfig {
+
+		static TestController controller;
+
+		@Bean
+		public TestService testService() {
+			return new TestService();
+		}
+
+		@Bean
+		public TestController testController() {
+			controller = new TestController();
+			return controller;
+		}
+	}
+
+	public static class TestService {
+	}
+
+	public static class TestController implements ApplicationContextAware {
+
+		@Autowired
+		private TestService service;
+
+		private ApplicationContext applicationContext;
+
+		public void setApplicationContext(ApplicationContext applicationContext) {
+			this.applicationContext = applicationContext;
+		}
+	}
+
+}
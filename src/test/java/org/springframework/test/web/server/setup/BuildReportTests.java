@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.annotationConfigSetup;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.standaloneSetup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.server.BuildReport;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+/**
+ * Tests for the {@link BuildReport} recorded by MockMvc builders.
+ */
+public class BuildReportTests {
+
+	private static final List<String> ALL_PHASES = Arrays.asList("initServletContext", "initWebApplicationContext", 
+			"getCachedMvcSetup", "initHandlerMappings", "initHandlerAdapters", "initHandlerExceptionResolvers", 
+			"initViewResolvers", "initViewNameTranslator", "initLocaleResolver", "initFlashMapManager", 
+			"mvcSetupInitialized");
+
+	private static final List<String> CACHED_PHASES = Arrays.asList("initServletContext", "initWebApplicationContext", 
+			"getCachedMvcSetup");
+
+	@Test
+	public void standaloneSetupPhases() {
+		BuildReport report = standaloneSetup(new TestController()).build().getBuildReport();
+
+		assertEquals(ALL_PHASES, getPhases(report));
+		assertEquals(StandaloneMockMvcBuilder.class.getName(), report.getBuilderKey());
+		assertTotalTime(report);
+	}
+
+	@Test
+	public void warmUpPhase() {
+		BuildReport report = standaloneSetup(new TestController()).warmUp(1).build().getBuildReport();
+
+		List<String> expected = new ArrayList<String>(ALL_PHASES);
+		expected.add("warmUp");
+		assertEquals(expected, getPhases(report));
+	}
+
+	@Test
+	public void contextSetupPhases() {
+		BuildReport report = annotationConfigSetup(TestConfig.class).build().getBuildReport();
+
+		assertEquals(ALL_PHASES, getPhases(report));
+		assertTrue(report.getBuilderKey(), report.getBuilderKey().startsWith("context "));
+		assertTrue(report.getBuilderKey(), report.getBuilderKey().contains(TestConfig.class.getName()));
+		assertTotalTime(report);
+	}
+
+	@Test
+	public void pooledContextSetupPhases() {
+		WebApplicationContextPool pool = new WebApplicationContextPool();
+		try {
+			BuildReport first = annotationConfigSetup(TestConfig.class).usePool(pool).build().getBuildReport();
+			BuildReport second = annotationConfigSetup(TestConfig.class).usePool(pool).build().getBuildReport();
+
+			assertEquals(ALL_PHASES, getPhases(first));
+			assertEquals(CACHED_PHASES, getPhases(second));
+			assertEquals(first.getBuilderKey(), second.getBuilderKey());
+		}
+		finally {
+			pool.clear();
+		}
+	}
+
+	@Test
+	public void initializedContextSetupPhases() {
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(new MockServletContext());
+		wac.refresh();
+		try {
+			BuildReport first = new InitializedContextMockMvcBuilder(wac).build().getBuildReport();
+			BuildReport second = new InitializedContextMockMvcBuilder(wac).build().getBuildReport();
+
+			assertEquals(ALL_PHASES, getPhases(first));
+			assertEquals(CACHED_PHASES, getPhases(second));
+		}
+		finally {
+			wac.close();
+		}
+	}
+
+	private static List<String> getPhases(BuildReport report) {
+		return new ArrayList<String>(report.getPhaseTimes().keySet());
+	}
+
+	private static void assertTotalTime(BuildReport report) {
+		long sum = 0;
+		for (long time : report.getPhaseTimes().values()) {
+			assertTrue(time >= 0);
+			sum += time;
+		}
+		assertEquals(sum, report.getTotalTime());
+	}
+
+
+	@Configuration
+	public static class TestConfig {
+	}
+
+	@Controller
+	private static class TestController {
+
+		@RequestMapping("/")
+		public @ResponseBody String handle() {
+			return "";
+		}
+	}
+
+}
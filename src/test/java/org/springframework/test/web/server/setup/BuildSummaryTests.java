@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.web.server.BuildReport;
+
+/**
+ * Tests for {@link BuildSummary}.
+ */
+public class BuildSummaryTests {
+
+	private boolean enabled;
+
+	@Before
+	public void setUp() {
+		this.enabled = BuildSummary.isEnabled();
+		BuildSummary.clear();
+	}
+
+	@After
+	public void tearDown() {
+		BuildSummary.clear();
+		if (this.enabled) {
+			BuildSummary.enable();
+		}
+		else {
+			BuildSummary.disable();
+		}
+	}
+
+	@Test
+	public void recordWhenDisabled() {
+		BuildSummary.disable();
+		BuildSummary.record(createReport("a", 1000000));
+
+		String summary = print();
+		assertFalse(summary, summary.contains("builds ="));
+	}
+
+	@Test
+	public void aggregateByBuilderKey() {
+		BuildSummary.enable();
+		BuildSummary.record(createReport("a", 1000000));
+		BuildSummary.record(createReport("a", 3000000));
+		BuildSummary.record(createReport("b", 100000000));
+
+		String[] lines = print().split("\n");
+		int a = indexOf(lines, "a");
+		int b = indexOf(lines, "b");
+
+		assertTrue("Highest total time first", b < a);
+		assertTrue(lines[b + 1], lines[b + 1].startsWith("    builds = 1, total = "));
+		assertTrue(lines[a + 1], lines[a + 1].startsWith("    builds = 2, total = "));
+		assertTrue(lines[a + 2], lines[a + 2].startsWith("    initWebApplicationContext = "));
+	}
+
+	private static BuildReport createReport(String builderKey, long phaseTime) {
+		BuildReport report = new BuildReport(builderKey);
+		report.addPhase("initWebApplicationContext", System.nanoTime() - phaseTime);
+		return report;
+	}
+
+	private static String print() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BuildSummary.print(new PrintStream(out));
+		return out.toString();
+	}
+
+	private static int indexOf(String[] lines, String line) {
+		for (int i = 0; i < lines.length; i++) {
+			if (lines[i].trim().equals(line)) {
+				return i;
+			}
+		}
+		throw new AssertionError("No line \"" + line + "\"");
+	}
+
+}
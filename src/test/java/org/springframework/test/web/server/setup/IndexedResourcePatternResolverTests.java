@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+/**
+ * Tests for {@link IndexedResourcePatternResolver} and {@link ComponentScanIndex}.
+ */
+public class IndexedResourcePatternResolverTests {
+
+	private static final String PATTERN = "**/*.txt";
+
+	private File jarFile;
+
+	private File indexFile;
+
+	private String rootUrl;
+
+	private ComponentScanIndex index;
+
+	private IndexedResourcePatternResolver resolver;
+
+	@Before
+	public void setup() throws Exception {
+		this.jarFile = File.createTempFile("component-scan", ".jar");
+		this.jarFile.deleteOnExit();
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(this.jarFile));
+		try {
+			out.putNextEntry(new ZipEntry("a/one.txt"));
+			out.write("one".getBytes("UTF-8"));
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+		this.rootUrl = "jar:" + this.jarFile.toURI().toURL() + "!/";
+
+		this.indexFile = File.createTempFile("component-scan", ".index");
+		this.indexFile.deleteOnExit();
+		ComponentScanIndex.enable(this.indexFile);
+		this.index = ComponentScanIndex.getSharedInstance();
+
+		this.resolver = new IndexedResourcePatternResolver(new DefaultResourceLoader());
+	}
+
+	@After
+	public void teardown() {
+		ComponentScanIndex.disable();
+	}
+
+	@Test
+	public void missingEntry() throws Exception {
+		assertEquals(Arrays.asList("a/one.txt"), findPaths());
+		assertEquals(Arrays.asList("a/one.txt"), getIndexedPaths(this.jarFile.length(), this.jarFile.lastModified()));
+	}
+
+	@Test
+	public void indexedEntry() throws Exception {
+		putIndexedPaths(this.jarFile.length(), this.jarFile.lastModified(), "b/two.txt");
+		assertEquals(Arrays.asList("b/two.txt"), findPaths());
+	}
+
+	@Test
+	public void staleEntryByLength() throws Exception {
+		putIndexedPaths(this.jarFile.length() + 1, this.jarFile.lastModified(), "b/two.txt");
+		assertEquals(Arrays.asList("a/one.txt"), findPaths());
+		assertEquals(Arrays.asList("a/one.txt"), getIndexedPaths(this.jarFile.length(), this.jarFile.lastModified()));
+	}
+
+	@Test
+	public void staleEntryByLastModified() throws Exception {
+		putIndexedPaths(this.jarFile.length(), this.jarFile.lastModified() - 1000, "b/two.txt");
+		assertEquals(Arrays.asList("a/one.txt"), findPaths());
+		assertNull(getIndexedPaths(this.jarFile.length(), this.jarFile.lastModified() - 1000));
+	}
+
+	@Test
+	public void indexDisabled() throws Exception {
+		putIndexedPaths(this.jarFile.length(), this.jarFile.lastModified(), "b/two.txt");
+		ComponentScanIndex.disable();
+		assertEquals(Arrays.asList("a/one.txt"), findPaths());
+	}
+
+	@Test
+	public void indexSavedAndReloaded() throws Exception {
+		putIndexedPaths(this.jarFile.length(), this.jarFile.lastModified(), "b/two.txt");
+		ComponentScanIndex.enable(this.indexFile);
+		assertEquals(Arrays.asList("b/two.txt"), findPaths());
+	}
+
+	private List<String> findPaths() throws Exception {
+		List<String> paths = new ArrayList<String>();
+		for (Resource resource : this.resolver.getResources(this.rootUrl + PATTERN)) {
+			paths.add(resource.getURL().toString().substring(this.rootUrl.length()));
+		}
+		return paths;
+	}
+
+	private List<String> getIndexedPaths(long jarLength, long jarLastModified) {
+		return this.index.getPaths(this.rootUrl + "|" + PATTERN, jarLength, jarLastModified);
+	}
+
+	private void putIndexedPaths(long jarLength, long jarLastModified, String... paths) {
+		this.index.putPaths(this.rootUrl + "|" + PATTERN, jarLength, jarLastModified, Arrays.asList(paths));
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+/**
+ * Tests for {@link InitializedContextMockMvcBuilder}.
+ */
+public class InitializedContextMockMvcBuilderTests {
+
+	@Test
+	public void cachedMvcSetup() {
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(new MockServletContext());
+		wac.refresh();
+
+		MvcSetup first = new InitializedContextMockMvcBuilder(wac).build().getMvcSetup();
+		MvcSetup second = new InitializedContextMockMvcBuilder(wac).build().getMvcSetup();
+		assertNotNull(first);
+		assertSame(first, second);
+
+		wac.close();
+		assertNull(new InitializedContextMockMvcBuilder(wac).getCachedMvcSetup(wac));
+	}
+
+	@Test
+	public void refreshedContext() {
+		AnnotationConfigWebApplicationContext wac = new AnnotationConfigWebApplicationContext();
+		wac.setServletContext(new MockServletContext());
+		wac.register(HandlerMappingConfig.class);
+		wac.refresh();
+
+		MvcSetup first = new InitializedContextMockMvcBuilder(wac).build().getMvcSetup();
+		HandlerMapping firstMapping = wac.getBean(HandlerMapping.class);
+		assertTrue(first.getHandlerMappings().contains(firstMapping));
+
+		wac.refresh();
+
+		MvcSetup second = new InitializedContextMockMvcBuilder(wac).build().getMvcSetup();
+		HandlerMapping secondMapping = wac.getBean(HandlerMapping.class);
+		assertNotSame(firstMapping, secondMapping);
+		assertNotSame(first, second);
+		assertTrue(second.getHandlerMappings().contains(secondMapping));
+
+		assertSame(second, new InitializedContextMockMvcBuilder(wac).build().getMvcSetup());
+		wac.close();
+	}
+
+
+	@Configuration
+	static class HandlerMappingConfig {
+
+		@Bean
+		public HandlerMapping handlerMapping() {
+			return new SimpleUrlHandlerMapping();
+		}
+	}
+
+}
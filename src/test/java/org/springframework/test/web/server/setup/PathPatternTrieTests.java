@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PathPatternTrie}.
+ */
+public class PathPatternTrieTests {
+
+	private PathPatternTrie trie;
+
+	@Before
+	public void setup() {
+		this.trie = new PathPatternTrie();
+		this.trie.add("/persons", 0);
+		this.trie.add("/persons/{id}", 1);
+		this.trie.add("/persons/{id}/address", 2);
+		this.trie.add("/persons/*", 3);
+		this.trie.add("/static/**", 4);
+		this.trie.add("/docs/**/*.html", 5);
+		this.trie.add("/accounts", 6);
+	}
+
+	@Test
+	public void literal() {
+		assertEquals(ids(0), collect("/persons"));
+		assertEquals(ids(6), collect("/accounts"));
+		assertEquals(ids(), collect("/orders"));
+	}
+
+	@Test
+	public void templateVariableAndWildcard() {
+		assertEquals(ids(1, 3), collect("/persons/1"));
+		assertEquals(ids(2), collect("/persons/1/address"));
+	}
+
+	@Test
+	public void trailingSlash() {
+		assertEquals(ids(0, 1, 3), collect("/persons/"));
+	}
+
+	@Test
+	public void suffix() {
+		assertEquals(ids(0), collect("/persons.json"));
+		assertEquals(ids(2), collect("/persons/1/address.xml"));
+	}
+
+	@Test
+	public void multipleSegments() {
+		assertEquals(ids(4), collect("/static"));
+		assertEquals(ids(4), collect("/static/css/site.html"));
+		assertEquals(ids(5), collect("/docs/index.html"));
+		assertEquals(ids(5), collect("/docs/a/b/index.html"));
+	}
+
+	private BitSet collect(String path) {
+		BitSet result = new BitSet();
+		this.trie.collect(path, result);
+		return result;
+	}
+
+	private static BitSet ids(int... ids) {
+		BitSet result = new BitSet();
+		for (int id : ids) {
+			result.set(id);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Tests for {@link RequestMappingInfoCache} as used by {@link StaticRequestMappingHandlerMapping}.
+ */
+public class RequestMappingInfoCacheTests {
+
+	@Before
+	public void setUp() {
+		RequestMappingInfoCache.clear();
+	}
+
+	@Test
+	public void detectOnce() {
+		CountingHandlerMapping first = new CountingHandlerMapping();
+		first.registerHandlers(new PersonController(), new AccountController(), new OrderController());
+		assertTrue(first.count > 0);
+
+		CountingHandlerMapping second = new CountingHandlerMapping();
+		second.registerHandlers(new PersonController(), new AccountController(), new OrderController());
+		assertEquals(0, second.count);
+		assertEquals(first.getHandlerMethods().keySet(), second.getHandlerMethods().keySet());
+	}
+
+	@Test
+	public void sharedMappings() {
+		StaticRequestMappingHandlerMapping handlerMapping = new StaticRequestMappingHandlerMapping();
+		Map<Method, RequestMappingInfo> mappings = RequestMappingInfoCache.getMappings(PersonController.class, handlerMapping);
+
+		assertSame(mappings, RequestMappingInfoCache.getMappings(PersonController.class, handlerMapping));
+	}
+
+	@Test
+	public void bindNewInstances() {
+		new StaticRequestMappingHandlerMapping().registerHandlers(new PersonController());
+
+		PersonController controller = new PersonController();
+		StaticRequestMappingHandlerMapping handlerMapping = new StaticRequestMappingHandlerMapping();
+		handlerMapping.registerHandlers(controller);
+
+		assertEquals(5, handlerMapping.getHandlerMethods().size());
+		for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+			assertSame(controller, handlerMethod.getBean());
+		}
+	}
+
+	@Test
+	public void sameAsDetected() {
+		StaticRequestMappingHandlerMapping cached = new StaticRequestMappingHandlerMapping();
+		cached.registerHandlers(new PersonController(), new AccountController(), new OrderController());
+		cached = new StaticRequestMappingHandlerMapping();
+		cached.registerHandlers(new PersonController(), new AccountController(), new OrderController());
+
+		DetectingHandlerMapping detected = new DetectingHandlerMapping();
+		detected.detectHandlerMethods(new PersonController());
+		detected.detectHandlerMethods(new AccountController());
+		detected.detectHandlerMethods(new OrderController());
+
+		assertEquals(detected.getHandlerMethods().keySet(), cached.getHandlerMethods().keySet());
+	}
+
+	@Test
+	public void clear() {
+		new StaticRequestMappingHandlerMapping().registerHandlers(new PersonController());
+		RequestMappingInfoCache.clear();
+
+		CountingHandlerMapping handlerMapping = new CountingHandlerMapping();
+		handlerMapping.registerHandlers(new PersonController());
+		assertTrue(handlerMapping.count > 0);
+	}
+
+
+	private static class CountingHandlerMapping extends StaticRequestMappingHandlerMapping {
+
+		private int count;
+
+		@Override
+		protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+			this.count++;
+			return super.getMappingForMethod(method, handlerType);
+		}
+	}
+
+	private static class DetectingHandlerMapping extends RequestMappingHandlerMapping {
+
+		@Override
+		public void detectHandlerMethods(Object handler) {
+			super.detectHandlerMethods(handler);
+		}
+	}
+
+	@Controller
+	@RequestMapping("/persons")
+	private static class PersonController {
+
+		@RequestMapping(method=RequestMethod.GET)
+		public @ResponseBody String list() {
+			return "";
+		}
+
+		@RequestMapping(value="/{id}", method=RequestMethod.GET)
+		public @ResponseBody String show(@PathVariable String id) {
+			return id;
+		}
+
+		@RequestMapping(method=RequestMethod.POST)
+		public @ResponseBody String create(@RequestParam String name) {
+			return name;
+		}
+
+		@RequestMapping(value="/{id}", method=RequestMethod.PUT)
+		public @ResponseBody String update(@PathVariable String id) {
+			return id;
+		}
+
+		@RequestMapping(value="/{id}", method=RequestMethod.DELETE)
+		public @ResponseBody String delete(@PathVariable String id) {
+			return id;
+		}
+	}
+
+	@Controller
+	@RequestMapping("/accounts")
+	private static class AccountController {
+
+		@RequestMapping(method=RequestMethod.GET)
+		public @ResponseBody String list() {
+			return "";
+		}
+
+		@RequestMapping(value="/{id}", method=RequestMethod.GET)
+		public @ResponseBody String show(@PathVariable String id) {
+			return id;
+		}
+
+		@RequestMapping(value="/{id}/balance", method=RequestMethod.GET, produces="text/plain")
+		public @ResponseBody String balance(@PathVariable String id) {
+			return id;
+		}
+	}
+
+	@Controller
+	@RequestMapping("/orders")
+	private static class OrderController {
+
+		@RequestMapping(method=RequestMethod.GET, params="status")
+		public @ResponseBody String byStatus(@RequestParam String status) {
+			return status;
+		}
+
+		@RequestMapping(value="/{id}/items", method=RequestMethod.GET)
+		public @ResponseBody String items(@PathVariable String id) {
+			return id;
+		}
+
+		@RequestMapping(value="/{id}/items/{itemId}", method=RequestMethod.GET)
+		public @ResponseBody String item(@PathVariable String id, @PathVariable String itemId) {
+			return itemId;
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.server.MockMvc;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Tests for {@link StandaloneMockMvcBuilder}.
+ */
+public class StandaloneMockMvcBuilderTests {
+
+	@Test
+	public void sharedMessageConverters() {
+		List<HttpMessageConverter<?>> first = getMessageConverters(new StandaloneMockMvcBuilder(controllers()));
+		List<HttpMessageConverter<?>> second = getMessageConverters(new StandaloneMockMvcBuilder(controllers()));
+
+		assertSame(SharedHttpMessageConverters.getConverters(), first);
+		assertSame(first, second);
+	}
+
+	@Test
+	public void sharedMessageConvertersTurnedOff() {
+		StandaloneMockMvcBuilder builder = new StandaloneMockMvcBuilder(controllers());
+		builder.setUseSharedMessageConverters(false);
+		List<HttpMessageConverter<?>> converters = getMessageConverters(builder);
+
+		List<HttpMessageConverter<?>> shared = SharedHttpMessageConverters.getConverters();
+		assertNotSame(shared, converters);
+		assertNotSame(shared.get(0), converters.get(0));
+	}
+
+	@Test
+	public void sharedConversionService() {
+		assertSame(SharedConversionService.getConversionService(), 
+				getConversionService(new StandaloneMockMvcBuilder(controllers())));
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void sharedConversionServiceAddConverter() {
+		SharedConversionService.getConversionService().addConverter(new IntegerToStringConverter());
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void sharedConversionServiceRemoveConvertible() {
+		SharedConversionService.getConversionService().removeConvertible(String.class, Integer.class);
+	}
+
+	@Test
+	public void addConverters() {
+		StandaloneMockMvcBuilder builder = new StandaloneMockMvcBuilder(controllers());
+		builder.addConverters(new IntegerToStringConverter());
+		FormattingConversionService conversionService = getConversionService(builder);
+
+		assertNotSame(SharedConversionService.getConversionService(), conversionService);
+		assertEquals("converted 1", conversionService.convert(1, String.class));
+	}
+
+	@Test
+	public void addConvertersToCustomConversionService() {
+		FormattingConversionService conversionService = new DefaultFormattingConversionService();
+		StandaloneMockMvcBuilder builder = new StandaloneMockMvcBuilder(controllers());
+		builder.setConversionService(conversionService);
+		builder.addConverters(new IntegerToStringConverter());
+		try {
+			builder.build();
+			fail("Expected IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals("1", conversionService.convert(1, String.class));
+	}
+
+	@Test
+	public void sharedValidator() {
+		Validator first = getValidator(new StandaloneMockMvcBuilder(controllers()));
+		Validator second = getValidator(new StandaloneMockMvcBuilder(controllers()));
+
+		assertNotNull(first);
+		assertSame(SharedValidatorFactory.getValidator(), first);
+		assertSame(first, second);
+	}
+
+	@Test
+	public void sharedValidatorTurnedOff() {
+		StandaloneMockMvcBuilder builder = new StandaloneMockMvcBuilder(controllers());
+		builder.setUseSharedValidator(false);
+		Validator first = getValidator(builder);
+		builder = new StandaloneMockMvcBuilder(controllers());
+		builder.setUseSharedValidator(false);
+		Validator second = getValidator(builder);
+
+		assertNotNull(first);
+		assertNotSame(SharedValidatorFactory.getValidator(), first);
+		assertNotSame(first, second);
+	}
+
+	@Test
+	public void customSharedValidator() {
+		Validator validator = new StubValidator();
+		StandaloneMockMvcBuilder.setSharedValidator(validator);
+		try {
+			assertSame(validator, getValidator(new StandaloneMockMvcBuilder(controllers())));
+			assertSame(validator, getValidator(new StandaloneMockMvcBuilder(controllers())));
+
+			StandaloneMockMvcBuilder builder = new StandaloneMockMvcBuilder(controllers());
+			builder.setUseSharedValidator(false);
+			assertNotSame(validator, getValidator(builder));
+		}
+		finally {
+			StandaloneMockMvcBuilder.setSharedValidator(null);
+		}
+		assertNotSame(validator, getValidator(new StandaloneMockMvcBuilder(controllers())));
+	}
+
+	@Test
+	public void chainBuilderMethods() {
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+				.warmUp(1)
+				.cacheHandlers(10)
+				.setUseSharedValidator(true)
+				.setSkipRendering(true)
+				.setUseSharedMessageConverters(true)
+				.build();
+
+		assertNotNull(mockMvc);
+	}
+
+	private static Object[] controllers() {
+		return new Object[] { new TestController() };
+	}
+
+	private static List<HttpMessageConverter<?>> getMessageConverters(StandaloneMockMvcBuilder builder) {
+		MockMvc mockMvc = builder.build();
+		return ((RequestMappingHandlerAdapter) mockMvc.getMvcSetup().getHandlerAdapters().get(0)).getMessageConverters();
+	}
+
+	private static FormattingConversionService getConversionService(StandaloneMockMvcBuilder builder) {
+		MockMvc mockMvc = builder.build();
+		RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) mockMvc.getMvcSetup().getHandlerAdapters().get(0);
+		return (FormattingConversionService) 
+				((ConfigurableWebBindingInitializer) adapter.getWebBindingInitializer()).getConversionService();
+	}
+
+	private static Validator getValidator(StandaloneMockMvcBuilder builder) {
+		MockMvc mockMvc = builder.build();
+		RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) mockMvc.getMvcSetup().getHandlerAdapters().get(0);
+		return ((ConfigurableWebBindingInitializer) adapter.getWebBindingInitializer()).getValidator();
+	}
+
+
+	private static class StubValidator implements Validator {
+
+		public boolean supports(Class<?> clazz) {
+			return true;
+		}
+
+		public void validate(Object target, Errors errors) {
+		}
+	}
+
+	private static class IntegerToStringConverter implements Converter<Integer, String> {
+
+		public String convert(Integer source) {
+			return "converted " + source;
+		}
+	}
+
+	@Controller
+	private static class TestController {
+
+		@RequestMapping("/")
+		public @ResponseBody String handle() {
+			return "";
+		}
+	}
+
+}
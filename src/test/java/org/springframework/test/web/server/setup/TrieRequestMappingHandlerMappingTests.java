@@ -0,0 +1,435 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Tests for {@link TrieRequestMappingHandlerMapping}, which must find the same
+ * handler methods, set the same request attributes, and raise the same
+ * exceptions as {@link StaticRequestMappingHandlerMapping}.
+ */
+public class TrieRequestMappingHandlerMappingTests {
+
+	private StaticRequestMappingHandlerMapping linearMapping;
+
+	private TrieRequestMappingHandlerMapping trieMapping;
+
+	@Before
+	public void setup() {
+		Object[] controllers = new Object[] { new SpecificityController(), new DeepController(), 
+				new SuffixController(), new SlashController(), new ConditionController(), 
+				new AmbiguousController(), new RootController() };
+
+		this.linearMapping = new StaticRequestMappingHandlerMapping();
+		this.linearMapping.registerHandlers(controllers);
+		this.trieMapping = new TrieRequestMappingHandlerMapping();
+		this.trieMapping.registerHandlers(controllers);
+	}
+
+	@Test
+	public void patternSpecificity() {
+		assertEquals("SpecificityController.literal", handlerOf(assertEquivalent(request("GET", "/spec/literal"))));
+		assertEquivalent(request("GET", "/spec/other"));
+		assertEquivalent(request("GET", "/spec/a/b"));
+		assertEquivalent(request("GET", "/spec/x/detail"));
+		assertEquivalent(request("GET", "/spec/x/detail/more"));
+		assertEquivalent(request("GET", "/spec"));
+	}
+
+	@Test
+	public void multipleSegments() {
+		assertEquivalent(request("GET", "/deep/end"));
+		assertEquivalent(request("GET", "/deep/x/y/end"));
+		assertEquivalent(request("GET", "/deep/a"));
+		assertEquivalent(request("GET", "/deep/a/b/c"));
+		assertEquivalent(request("GET", "/deep/a/b/z"));
+		assertEquivalent(request("GET", "/deep/a/z"));
+		assertEquivalent(request("GET", "/deep/x/y"));
+	}
+
+	@Test
+	public void suffixPatterns() {
+		assertEquivalent(request("GET", "/suffix/exact"));
+		assertEquivalent(request("GET", "/suffix/exact.json"));
+		assertEquivalent(request("GET", "/suffix/exact.tar.gz"));
+		assertEquivalent(request("GET", "/suffix/other.xml"));
+		assertEquivalent(request("GET", "/suffix/file.json"));
+		assertEquivalent(request("GET", "/suffix/file.xml"));
+		assertEquivalent(request("GET", "/suffix/page.html"));
+		assertEquivalent(request("GET", "/spec/literal.json"));
+		assertEquivalent(request("GET", "/spec/x/detail.json"));
+	}
+
+	@Test
+	public void trailingSlash() {
+		assertEquivalent(request("GET", "/slash/path/"));
+		assertEquivalent(request("GET", "/slash/"));
+		assertEquivalent(request("GET", "/slash/x/"));
+		assertEquivalent(request("GET", "/spec/literal/"));
+		assertEquivalent(request("GET", "/"));
+	}
+
+	@Test
+	public void paramsCondition() {
+		MockHttpServletRequest request = request("GET", "/cond/params");
+		request.addParameter("mode", "a");
+		assertEquivalent(request);
+
+		request = request("GET", "/cond/params");
+		request.addParameter("mode", "b");
+		assertEquivalent(request);
+
+		assertEquivalent(request("GET", "/cond/params"));
+	}
+
+	@Test
+	public void headersCondition() {
+		MockHttpServletRequest request = request("GET", "/cond/headers");
+		request.addHeader("X-Test", "1");
+		assertEquivalent(request);
+
+		request = request("GET", "/cond/headers");
+		request.addHeader("X-Test", "2");
+		assertEquivalent(request);
+	}
+
+	@Test
+	public void producesCondition() {
+		for (String accept : new String[] { "application/json", "text/xml", "text/plain", "*/*" }) {
+			MockHttpServletRequest request = request("GET", "/cond/produces");
+			request.addHeader("Accept", accept);
+			assertEquivalent(request);
+		}
+		assertEquivalent(request("GET", "/cond/produces"));
+	}
+
+	@Test
+	public void consumesCondition() {
+		for (String contentType : new String[] { "application/json", "text/plain" }) {
+			MockHttpServletRequest request = request("POST", "/cond/consumes");
+			request.setContentType(contentType);
+			request.addHeader("Content-Type", contentType);
+			assertEquivalent(request);
+		}
+	}
+
+	@Test
+	public void methodCondition() {
+		assertEquivalent(request("GET", "/cond/method"));
+		assertEquals("HttpRequestMethodNotSupportedException", assertEquivalent(request("POST", "/cond/method")));
+		assertEquivalent(request("DELETE", "/cond/7"));
+		assertEquivalent(request("GET", "/cond/7"));
+	}
+
+	@Test
+	public void ambiguousMapping() {
+		assertEquals("IllegalStateException", assertEquivalent(request("GET", "/ambiguous/x")));
+	}
+
+	@Test
+	public void noMatch() {
+		assertEquals("none", assertEquivalent(request("GET", "/none")));
+		assertEquivalent(request("GET", "/spec-other"));
+		assertEquivalent(request("GET", "/slash/path/more"));
+	}
+
+	@Test
+	public void patternlessMapping() {
+		Object[] controllers = new Object[] { new ConditionController(), new PatternlessController() };
+		this.linearMapping = new StaticRequestMappingHandlerMapping();
+		this.linearMapping.registerHandlers(controllers);
+		this.trieMapping = new TrieRequestMappingHandlerMapping();
+		this.trieMapping.registerHandlers(controllers);
+
+		assertEquals("PatternlessController.anyPut", handlerOf(assertEquivalent(request("PUT", "/anything"))));
+		assertEquivalent(request("PUT", "/cond/method"));
+		assertEquivalent(request("GET", "/anything"));
+		assertEquivalent(request("GET", "/cond/method"));
+	}
+
+	@Test
+	public void candidatesOnly() throws Exception {
+		CountingLinearMapping linear = new CountingLinearMapping();
+		CountingTrieMapping trie = new CountingTrieMapping();
+		Map<Method, RequestMappingInfo> mappings = RequestMappingInfoCache.getMappings(SpecificityController.class, linear);
+		SpecificityController controller = new SpecificityController();
+		for (int i = 0; i < 100; i++) {
+			RequestMappingInfo prefix = new RequestMappingInfo(
+					new PatternsRequestCondition("/r" + i), null, null, null, null, null, null);
+			for (Map.Entry<Method, RequestMappingInfo> entry : mappings.entrySet()) {
+				linear.register(controller, entry.getKey(), prefix.combine(entry.getValue()));
+				trie.register(controller, entry.getKey(), prefix.combine(entry.getValue()));
+			}
+		}
+		int mappingCount = linear.getHandlerMethods().size();
+
+		MockHttpServletRequest request = request("GET", "/r42/spec/x/detail");
+		assertEquals(lookup(linear, request), lookup(trie, copy(request)));
+		assertEquals(mappingCount, linear.count);
+		assertTrue("Checked " + trie.count + " of " + mappingCount + " mappings", trie.count < mappings.size());
+	}
+
+	private String assertEquivalent(MockHttpServletRequest request) {
+		String expected = lookup(this.linearMapping, request);
+		String actual = lookup(this.trieMapping, copy(request));
+		assertEquals(request.getMethod() + " " + request.getRequestURI(), expected, actual);
+		return actual;
+	}
+
+	/**
+	 * Describe the handler method and the request attributes set by the handler 
+	 * mapping, or the exception raised, or "none" if there is no match. 
+	 */
+	private static String lookup(HandlerMapping mapping, HttpServletRequest request) {
+		try {
+			HandlerExecutionChain chain = mapping.getHandler(request);
+			if (chain == null) {
+				return "none";
+			}
+			Method method = ((HandlerMethod) chain.getHandler()).getMethod();
+			return method.getDeclaringClass().getSimpleName() + "." + method.getName() + 
+					" " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) + 
+					" " + request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE) + 
+					" " + request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) + 
+					" " + request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		}
+		catch (Exception ex) {
+			return ex.getClass().getSimpleName();
+		}
+	}
+
+	private static String handlerOf(String lookupResult) {
+		int index = lookupResult.indexOf(' ');
+		return (index != -1) ? lookupResult.substring(0, index) : lookupResult;
+	}
+
+	private static MockHttpServletRequest request(String method, String uri) {
+		return new MockHttpServletRequest(method, uri);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MockHttpServletRequest copy(MockHttpServletRequest request) {
+		MockHttpServletRequest copy = new MockHttpServletRequest(request.getMethod(), request.getRequestURI());
+		copy.setContentType(request.getContentType());
+		for (String name : Collections.list((Enumeration<String>) request.getHeaderNames())) {
+			for (String value : Collections.list((Enumeration<String>) request.getHeaders(name))) {
+				copy.addHeader(name, value);
+			}
+		}
+		copy.setParameters(request.getParameterMap());
+		return copy;
+	}
+
+
+	private static class CountingLinearMapping extends StaticRequestMappingHandlerMapping {
+
+		private int count;
+
+		public void register(Object handler, Method method, RequestMappingInfo mapping) {
+			registerHandlerMethod(handler, method, mapping);
+		}
+
+		@Override
+		protected RequestMappingInfo getMatchingMapping(RequestMappingInfo info, HttpServletRequest request) {
+			this.count++;
+			return super.getMatchingMapping(info, request);
+		}
+	}
+
+	private static class CountingTrieMapping extends TrieRequestMappingHandlerMapping {
+
+		private int count;
+
+		public void register(Object handler, Method method, RequestMappingInfo mapping) {
+			registerHandlerMethod(handler, method, mapping);
+		}
+
+		@Override
+		protected RequestMappingInfo getMatchingMapping(RequestMappingInfo info, HttpServletRequest request) {
+			this.count++;
+			return super.getMatchingMapping(info, request);
+		}
+	}
+
+	@Controller
+	@RequestMapping("/spec")
+	private static class SpecificityController {
+
+		@RequestMapping("/literal")
+		public void literal() {
+		}
+
+		@RequestMapping("/{var}")
+		public void variable() {
+		}
+
+		@RequestMapping("/*")
+		public void wildcard() {
+		}
+
+		@RequestMapping("/**")
+		public void anyPath() {
+		}
+
+		@RequestMapping("/{var}/detail")
+		public void variableDetail() {
+		}
+
+		@RequestMapping("/*/detail/**")
+		public void wildcardDetail() {
+		}
+	}
+
+	@Controller
+	@RequestMapping("/deep")
+	private static class DeepController {
+
+		@RequestMapping("/**/end")
+		public void end() {
+		}
+
+		@RequestMapping("/a/**")
+		public void underA() {
+		}
+
+		@RequestMapping("/a/**/z")
+		public void underAEndingWithZ() {
+		}
+	}
+
+	@Controller
+	@RequestMapping("/suffix")
+	private static class SuffixController {
+
+		@RequestMapping("/exact")
+		public void exact() {
+		}
+
+		@RequestMapping("/{name}")
+		public void name() {
+		}
+
+		@RequestMapping("/file.json")
+		public void file() {
+		}
+
+		@RequestMapping("/*.html")
+		public void html() {
+		}
+	}
+
+	@Controller
+	@RequestMapping("/slash")
+	private static class SlashController {
+
+		@RequestMapping("/path")
+		public void path() {
+		}
+
+		@RequestMapping("/*")
+		public void wildcard() {
+		}
+	}
+
+	@Controller
+	@RequestMapping("/cond")
+	private static class ConditionController {
+
+		@RequestMapping(value="/params", params="mode=a")
+		public void paramsA() {
+		}
+
+		@RequestMapping("/params")
+		public void paramsNone() {
+		}
+
+		@RequestMapping(value="/headers", headers="X-Test=1")
+		public void headers() {
+		}
+
+		@RequestMapping(value="/produces", produces="application/json")
+		public void json() {
+		}
+
+		@RequestMapping(value="/produces", produces="text/xml")
+		public void xml() {
+		}
+
+		@RequestMapping(value="/consumes", method=RequestMethod.POST, consumes="application/json")
+		public void consumes() {
+		}
+
+		@RequestMapping(value="/method", method=RequestMethod.GET)
+		public void methodGet() {
+		}
+
+		@RequestMapping(value="/{id}", method=RequestMethod.DELETE)
+		public void delete() {
+		}
+	}
+
+	@Controller
+	@RequestMapping("/ambiguous")
+	private static class AmbiguousController {
+
+		@RequestMapping("/{a}")
+		public void first() {
+		}
+
+		@RequestMapping("/{b}")
+		public void second() {
+		}
+	}
+
+	@Controller
+	private static class RootController {
+
+		@RequestMapping("/")
+		public void root() {
+		}
+	}
+
+	@Controller
+	private static class PatternlessController {
+
+		@RequestMapping(method=RequestMethod.PUT)
+		public void anyPut() {
+		}
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.server.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.server.setup.MockMvcBuilders.annotationConfigSetup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.server.MvcSetup;
+import org.springframework.test.web.server.setup.WebApplicationContextPool.PooledContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.FlashMapManager;
+import org.springframework.web.servlet.HandlerAdapter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.RequestToViewNameTranslator;
+import org.springframework.web.servlet.ViewResolver;
+
+/**
+ * Tests for {@link WebApplicationContextPool}.
+ */
+public class WebApplicationContextPoolTests {
+
+	private WebApplicationContextPool pool;
+
+	@Before
+	public void setUp() {
+		this.pool = new WebApplicationContextPool();
+		TestConfig.refreshCount = 0;
+	}
+
+	@After
+	public void tearDown() {
+		this.pool.clear();
+	}
+
+	@Test
+	public void sharedContext() {
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).build();
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).build();
+
+		assertEquals(1, this.pool.size());
+		assertEquals(1, TestConfig.refreshCount);
+	}
+
+	@Test
+	public void concurrentBuilds() throws Exception {
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread() {
+				public void run() {
+					try {
+						startLatch.await();
+						annotationConfigSetup(TestConfig.class).usePool(pool).build();
+					}
+					catch (Throwable ex) {
+						failures.add(ex);
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		startLatch.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(failures.toString(), failures.isEmpty());
+		assertEquals(1, this.pool.size());
+		assertEquals(1, TestConfig.refreshCount);
+	}
+
+	@Test
+	public void failedRefresh() throws Exception {
+		FailingConfig.fail = true;
+		try {
+			annotationConfigSetup(FailingConfig.class).usePool(this.pool).build();
+			fail("Expected refresh to fail");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+		finally {
+			FailingConfig.fail = false;
+		}
+
+		// Build on another thread, since the creation lock is reentrant
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					annotationConfigSetup(FailingConfig.class).usePool(pool).build();
+				}
+				catch (Throwable ex) {
+					failures.add(ex);
+				}
+			}
+		};
+		thread.start();
+		thread.join(5000);
+
+		assertFalse("Build after a failed refresh did not complete", thread.isAlive());
+		assertTrue(failures.toString(), failures.isEmpty());
+		assertEquals(1, this.pool.size());
+	}
+
+	@Test
+	public void differentProfiles() {
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).build();
+		annotationConfigSetup(TestConfig.class).activateProfiles("dev").usePool(this.pool).build();
+
+		assertEquals(2, this.pool.size());
+		assertEquals(2, TestConfig.refreshCount);
+	}
+
+	@Test
+	public void differentParentContexts() {
+		StaticWebApplicationContext parent = new StaticWebApplicationContext();
+		parent.refresh();
+
+		annotationConfigSetup(TestConfig.class).setParentContext(parent).usePool(this.pool).build();
+		annotationConfigSetup(TestConfig.class).setParentContext(parent).usePool(this.pool).build();
+		annotationConfigSetup(TestConfig.class).usePool(this.pool).build();
+
+		assertEquals(2, this.pool.size());
+		assertEquals(2, TestConfig.refreshCount);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		this.pool.setMaxSize(2);
+
+		PooledContext first = createPooledContext();
+		PooledContext second = createPooledContext();
+		PooledContext third = createPooledContext();
+
+		this.pool.put("first", first);
+		this.pool.put("second", second);
+		this.pool.get("first");
+		this.pool.put("third", third);
+
+		assertEquals(2, this.pool.size());
+		assertNotNull(this.pool.get("first"));
+		assertNull(this.pool.get("second"));
+		assertFalse(((StaticWebApplicationContext) second.getWebApplicationContext()).isActive());
+		assertTrue(((StaticWebApplicationContext) first.getWebApplicationContext()).isActive());
+	}
+
+	@Test
+	public void putExistingKey() {
+		PooledContext first = createPooledContext();
+		PooledContext second = createPooledContext();
+
+		assertTrue(this.pool.put("key", first));
+		assertFalse(this.pool.put("key", second));
+		assertEquals(first, this.pool.get("key"));
+	}
+
+	private PooledContext createPooledContext() {
+		MockServletContext servletContext = new MockServletContext();
+		StaticWebApplicationContext wac = new StaticWebApplicationContext();
+		wac.setServletContext(servletContext);
+		wac.refresh();
+		return new PooledContext(servletContext, wac, new StubMvcSetup());
+	}
+
+
+	@Configuration
+	public static class TestConfig {
+
+		static int refreshCount;
+
+		@Bean
+		public Object counter() {
+			refreshCount++;
+			return new Object();
+		}
+	}
+
+	@Configuration
+	public static class FailingConfig {
+
+		static volatile boolean fail;
+
+		@Bean
+		public Object failing() {
+			if (fail) {
+				throw new IllegalStateException("Failing on purpose");
+			}
+			return new Object();
+		}
+	}
+
+	private static class StubMvcSetup implements MvcSetup {
+
+		public List<HandlerMapping> getHandlerMappings() {
+			return Collections.emptyList();
+		}
+
+		public List<HandlerAdapter> getHandlerAdapters() {
+			return Collections.emptyList();
+		}
+
+		public List<HandlerExceptionResolver> getExceptionResolvers() {
+			return Collections.emptyList();
+		}
+
+		public List<ViewResolver> getViewResolvers() {
+			return Collections.emptyList();
+		}
+
+		public RequestToViewNameTranslator getViewNameTranslator() {
+			return null;
+		}
+
+		public LocaleResolver getLocaleResolver() {
+			return null;
+		}
+
+		public FlashMapManager getFlashMapManager() {
+			return null;
+		}
+	}
+
+}